@@ -62,6 +62,22 @@ public class GraphQLSettings implements PersistentStateComponent<GraphQLSettings
         myState.enableIntrospectionDefaultValues = enableIntrospectionDefaultValues;
     }
 
+    public boolean isEnableBackgroundSchemaBuild() {
+        return myState.enableBackgroundSchemaBuild;
+    }
+
+    public void setEnableBackgroundSchemaBuild(boolean enableBackgroundSchemaBuild) {
+        myState.enableBackgroundSchemaBuild = enableBackgroundSchemaBuild;
+    }
+
+    public boolean isEnableParallelSchemaBuild() {
+        return myState.enableParallelSchemaBuild;
+    }
+
+    public void setEnableParallelSchemaBuild(boolean enableParallelSchemaBuild) {
+        myState.enableParallelSchemaBuild = enableParallelSchemaBuild;
+    }
+
 
 
     /**
@@ -73,6 +89,8 @@ public class GraphQLSettings implements PersistentStateComponent<GraphQLSettings
         public String introspectionQuery = "";
         public boolean enableIntrospectionDefaultValues = true;
         public boolean enableRelayModernFrameworkSupport;
+        public boolean enableBackgroundSchemaBuild;
+        public boolean enableParallelSchemaBuild;
     }
 }
 
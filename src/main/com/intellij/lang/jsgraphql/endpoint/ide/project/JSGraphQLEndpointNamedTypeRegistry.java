@@ -10,6 +10,7 @@ package com.intellij.lang.jsgraphql.endpoint.ide.project;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.intellij.lang.jsgraphql.endpoint.JSGraphQLEndpointFileType;
 import com.intellij.lang.jsgraphql.endpoint.psi.*;
 import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLConfigManager;
 import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLNamedScope;
@@ -63,6 +64,14 @@ public class JSGraphQLEndpointNamedTypeRegistry implements JSGraphQLNamedTypeReg
                 endpointEntryPsiFile.clear();
                 projectToRegistry.clear();
             }
+
+            @Override
+            public void onGraphQLSchemaChanged(Integer schemaVersion, Collection<VirtualFile> changedFiles) {
+                if (changedFiles == null || changedFiles.stream().anyMatch(file -> file.getFileType() == JSGraphQLEndpointFileType.INSTANCE)) {
+                    onGraphQLSchemaChanged(schemaVersion);
+                }
+                // the endpoint types are only declared in endpoint files, so changes to other files can't affect them
+            }
         });
     }
 
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiFile;
+import graphql.language.SourceLocation;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the graphql-java validation errors of the top-level definitions in a file against a specific schema.
+ * <p>
+ * Errors are keyed by the content of the validated definitions, and their locations are stored relative to the start of those definitions,
+ * such that the errors of unchanged definitions can be re-used after edits elsewhere in the file have moved them.
+ */
+class GraphQLDefinitionValidationCache {
+
+    private static final Key<GraphQLDefinitionValidationCache> CACHE = Key.create(GraphQLDefinitionValidationCache.class.getName());
+
+    /**
+     * Max number of cached definitions before results that weren't used by the latest validation of an injected file are discarded
+     */
+    private static final int MAX_CACHED_DEFINITIONS = 1000;
+
+    private final GraphQLSchema schema;
+    private final Map<String, List<CachedError>> keyToErrors = Maps.newConcurrentMap();
+
+    // the number of lookups that were served from the cache, and that required the definitions to be validated
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    private GraphQLDefinitionValidationCache(GraphQLSchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Gets the cache of a top-level file, discarding any results that were validated against a previous version of the schema
+     */
+    static GraphQLDefinitionValidationCache getInstance(@NotNull PsiFile topLevelFile, @NotNull GraphQLSchema schema) {
+        GraphQLDefinitionValidationCache cache = topLevelFile.getUserData(CACHE);
+        if (cache == null || cache.schema != schema) {
+            cache = new GraphQLDefinitionValidationCache(schema);
+            topLevelFile.putUserData(CACHE, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Gets the cached errors of validated definitions
+     *
+     * @param key               the key of the definitions content
+     * @param definitionOffsets the current start offsets of the definitions in the document
+     * @param document          the document of the top-level file
+     * @return the errors with locations for the current definition offsets, or null if the definitions haven't been validated
+     */
+    @Nullable
+    List<ValidationError> get(@NotNull String key, @NotNull int[] definitionOffsets, @NotNull Document document) {
+        final List<CachedError> cachedErrors = keyToErrors.get(key);
+        if (cachedErrors == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        final List<ValidationError> errors = Lists.newArrayListWithExpectedSize(cachedErrors.size());
+        for (CachedError cachedError : cachedErrors) {
+            errors.add(cachedError.toValidationError(definitionOffsets, document));
+        }
+        return errors;
+    }
+
+    /**
+     * Caches the errors of validated definitions
+     *
+     * @param key               the key of the definitions content
+     * @param errors            the validation errors of the definitions
+     * @param definitionOffsets the start offsets of the definitions in the document
+     * @param document          the document of the top-level file
+     */
+    void put(@NotNull String key, @NotNull List<ValidationError> errors, @NotNull int[] definitionOffsets, @NotNull Document document) {
+        final List<CachedError> cachedErrors = Lists.newArrayListWithExpectedSize(errors.size());
+        for (ValidationError error : errors) {
+            cachedErrors.add(new CachedError(error, definitionOffsets, document));
+        }
+        keyToErrors.put(key, cachedErrors);
+    }
+
+    @VisibleForTesting
+    int getHitCount() {
+        return hitCount.get();
+    }
+
+    @VisibleForTesting
+    int getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Discards the results of definitions that no longer exist
+     *
+     * @param usedKeys the keys of the definitions in the latest validation
+     * @param injected whether the validated file is injected, in which case other injections in the same top-level file share the cache
+     */
+    void removeUnused(@NotNull Set<String> usedKeys, boolean injected) {
+        if (!injected || keyToErrors.size() > MAX_CACHED_DEFINITIONS) {
+            keyToErrors.keySet().retainAll(usedKeys);
+        }
+    }
+
+    /**
+     * A validation error with locations relative to the start of the definition they're located in
+     */
+    private static class CachedError {
+
+        final ValidationError error;
+        final int[] locationDefinitionIndexes;
+        final int[] locationDefinitionDeltas;
+        final int[] locationOffsets;
+
+        CachedError(ValidationError error, int[] definitionOffsets, Document document) {
+            this.error = error;
+            final List<SourceLocation> locations = error.getLocations() != null ? error.getLocations() : Lists.newArrayList();
+            locationDefinitionIndexes = new int[locations.size()];
+            locationDefinitionDeltas = new int[locations.size()];
+            locationOffsets = new int[locations.size()];
+            for (int i = 0; i < locations.size(); i++) {
+                final int offset = getOffset(locations.get(i), document);
+                locationOffsets[i] = offset;
+                locationDefinitionIndexes[i] = -1;
+                if (offset == -1) {
+                    continue;
+                }
+                // the definitions aren't sorted by offset, so find the nearest definition that starts before the location
+                for (int definitionIndex = 0; definitionIndex < definitionOffsets.length; definitionIndex++) {
+                    final int definitionOffset = definitionOffsets[definitionIndex];
+                    if (definitionOffset <= offset && (locationDefinitionIndexes[i] == -1 || offset - definitionOffset < locationDefinitionDeltas[i])) {
+                        locationDefinitionIndexes[i] = definitionIndex;
+                        locationDefinitionDeltas[i] = offset - definitionOffset;
+                    }
+                }
+            }
+        }
+
+        ValidationError toValidationError(int[] definitionOffsets, Document document) {
+            final List<SourceLocation> locations = error.getLocations();
+            if (locations == null || locations.isEmpty()) {
+                return error;
+            }
+            boolean moved = false;
+            final List<SourceLocation> movedLocations = Lists.newArrayListWithExpectedSize(locations.size());
+            for (int i = 0; i < locations.size(); i++) {
+                final int definitionIndex = locationDefinitionIndexes[i];
+                if (definitionIndex == -1 || definitionIndex >= definitionOffsets.length) {
+                    movedLocations.add(locations.get(i));
+                    continue;
+                }
+                final int offset = definitionOffsets[definitionIndex] + locationDefinitionDeltas[i];
+                if (offset == locationOffsets[i] || offset > document.getTextLength()) {
+                    movedLocations.add(locations.get(i));
+                    continue;
+                }
+                final int line = document.getLineNumber(offset);
+                // graphql-java source locations are 1-based
+                movedLocations.add(new SourceLocation(line + 1, offset - document.getLineStartOffset(line) + 1, locations.get(i).getSourceName()));
+                moved = true;
+            }
+            if (!moved) {
+                return error;
+            }
+            return new ValidationError(error.getValidationErrorType(), movedLocations, error.getDescription(), error.getQueryPath());
+        }
+
+        private static int getOffset(SourceLocation location, Document document) {
+            final int line = location.getLine() - 1;
+            if (line < 0 || line >= document.getLineCount()) {
+                return -1;
+            }
+            return document.getLineStartOffset(line) + location.getColumn() - 1;
+        }
+    }
+}
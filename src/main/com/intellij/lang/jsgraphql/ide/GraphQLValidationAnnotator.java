@@ -8,6 +8,9 @@
 package com.intellij.lang.jsgraphql.ide;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.intellij.codeInsight.daemon.impl.quickfix.RenameElementFix;
 import com.intellij.codeInspection.InspectionManager;
 import com.intellij.codeInspection.LocalQuickFix;
@@ -17,6 +20,7 @@ import com.intellij.lang.annotation.Annotation;
 import com.intellij.lang.annotation.AnnotationHolder;
 import com.intellij.lang.annotation.AnnotationSession;
 import com.intellij.lang.annotation.Annotator;
+import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLInjectionSearchHelper;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLPsiSearchHelper;
 import com.intellij.lang.jsgraphql.psi.GraphQLArgument;
@@ -28,12 +32,14 @@ import com.intellij.lang.jsgraphql.psi.impl.GraphQLDirectivesAware;
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaWithErrors;
 import com.intellij.lang.jsgraphql.schema.GraphQLTypeDefinitionRegistryServiceImpl;
 import com.intellij.lang.jsgraphql.schema.GraphQLTypeScopeProvider;
+import com.intellij.lang.jsgraphql.utils.GraphQLPsiToLanguage;
 import com.intellij.lang.jsgraphql.utils.GraphQLUtil;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.LogicalPosition;
 import com.intellij.openapi.editor.colors.CodeInsightColors;
-import com.intellij.openapi.project.Project;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Ref;
@@ -51,23 +57,31 @@ import graphql.schema.idl.errors.SchemaProblem;
 import graphql.schema.validation.InvalidSchemaException;
 import graphql.validation.ValidationError;
 import graphql.validation.ValidationErrorType;
-import graphql.validation.Validator;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class GraphQLValidationAnnotator implements Annotator {
 
-    private static final Key<List<? extends GraphQLError>> ERRORS = Key.create(GraphQLValidationAnnotator.class.getName() + ".errors");
+    private static final Logger LOG = Logger.getInstance(GraphQLValidationAnnotator.class);
+
+    private static final Key<ValidationResult> VALIDATION_RESULT = Key.create(GraphQLValidationAnnotator.class.getName() + ".validationResult");
     private static final Key<Editor> EDITOR = Key.create(GraphQLValidationAnnotator.class.getName() + ".editor");
 
+    // only run the graphql-java rules whose errors are reported, since the other rules are covered by PSI references
+    private final GraphQLValidator validator = new GraphQLValidator(GraphQLValidator.REPORTED_RULES);
+
     @Override
     public void annotate(@NotNull PsiElement psiElement, @NotNull AnnotationHolder annotationHolder) {
 
@@ -183,68 +197,83 @@ public class GraphQLValidationAnnotator implements Annotator {
             }
         }
 
-        // validation using graphql-java
-        final AnnotationSession session = annotationHolder.getCurrentAnnotationSession();
+        // validation using graphql-java, which runs in GraphQLValidationExternalAnnotator for GraphQL files,
+        // but external annotators aren't invoked for injected GraphQL so those are validated here
         final PsiFile containingFile = psiElement.getContainingFile();
-        final Project project = psiElement.getProject();
+        if (containingFile.getContext() == null) {
+            return;
+        }
+        final AnnotationSession session = annotationHolder.getCurrentAnnotationSession();
+        if (session.getUserData(VALIDATION_RESULT) == null) {
+            final ValidationResult validationResult = validateWithSchema(containingFile);
+            session.putUserData(VALIDATION_RESULT, validationResult);
+            annotateWithSchemaValidation(containingFile, validationResult, annotationHolder);
+        }
+    }
 
-        List<? extends GraphQLError> userData = session.getUserData(ERRORS);
-        if (userData == null) {
+    /**
+     * Validates a file against its schema using graphql-java. Must be called in a read action.
+     */
+    @NotNull
+    ValidationResult validateWithSchema(@NotNull PsiFile containingFile) {
+        try {
+            final GraphQLSchemaWithErrors schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(containingFile.getProject()).getSchemaWithErrors(containingFile);
+            if (schema.isErrorsPresent()) {
+                return new ValidationResult(schema.getErrors(), Collections.emptyList());
+            }
+            // adjust source locations for injected GraphQL since the annotator works on the entire editor buffer (e.g. tsx with graphql tagged templates)
+            int lineDelta = 0;
+            int firsteLineColumDelta = 0;
+            if (containingFile.getContext() != null) {
+                final LogicalPosition logicalPosition = getLogicalPositionFromOffset(containingFile, containingFile.getContext().getTextOffset());
+                if (logicalPosition.line > 0 || logicalPosition.column > 0) {
+                    // logical positions can be used as deltas between graphql-java and intellij since graphql-java is 1-based and intellij is 0-based
+                    lineDelta = logicalPosition.line;
+                    firsteLineColumDelta = logicalPosition.column;
+                }
+            }
+            return new ValidationResult(Collections.emptyList(), validateDefinitions(containingFile, schema.getSchema(), lineDelta, firsteLineColumDelta));
+        } catch (SchemaProblem | CancellationException | InvalidSchemaException | AssertException e) {
+            // error in graphql-java, so no validation available at this time
+            return ValidationResult.EMPTY;
+        }
+    }
 
-            try {
-                final GraphQLSchemaWithErrors schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(project).getSchemaWithErrors(psiElement);
-                if (!schema.isErrorsPresent()) {
-                    // adjust source locations for injected GraphQL since the annotator works on the entire editor buffer (e.g. tsx with graphql tagged templates)
-                    int lineDelta = 0;
-                    int firsteLineColumDelta = 0;
+    /**
+     * Creates the error annotations of validating a file against its schema
+     */
+    void annotateWithSchemaValidation(@NotNull PsiFile containingFile, @NotNull ValidationResult validationResult, @NotNull AnnotationHolder annotationHolder) {
+        if (!validationResult.schemaErrors.isEmpty()) {
+            final String currentFileName = GraphQLPsiUtil.getFileName(containingFile);
+            final Ref<SourceLocation> firstSchemaError = new Ref<>();
+            for (GraphQLError error : validationResult.schemaErrors) {
+                SourceLocation firstSourceLocation = error.getLocations().stream().findFirst().orElse(null);
+                if (firstSourceLocation != null && firstSchemaError.isNull()) {
+                    firstSchemaError.set(firstSourceLocation);
+                }
+                if (firstSourceLocation != null && currentFileName.equals(firstSourceLocation.getSourceName())) {
+                    int positionToOffset = getOffsetFromSourceLocation(containingFile, firstSourceLocation);
+                    if (positionToOffset == -1) {
+                        continue;
+                    }
                     if (containingFile.getContext() != null) {
-                        final LogicalPosition logicalPosition = getLogicalPositionFromOffset(containingFile, containingFile.getContext().getTextOffset());
-                        if (logicalPosition.line > 0 || logicalPosition.column > 0) {
-                            // logical positions can be used as deltas between graphql-java and intellij since graphql-java is 1-based and intellij is 0-based
-                            lineDelta = logicalPosition.line;
-                            firsteLineColumDelta = logicalPosition.column;
-                        }
+                        // injected file, so adjust the position
+                        positionToOffset = positionToOffset - containingFile.getContext().getTextOffset();
                     }
-                    final Document document = GraphQLUtil.parseDocument(replacePlaceholdersWithValidGraphQL(containingFile), lineDelta, firsteLineColumDelta);
-                    userData = new Validator().validateDocument(schema.getSchema(), document);
-                } else {
-                    final String currentFileName = GraphQLPsiUtil.getFileName(containingFile);
-                    final Ref<SourceLocation> firstSchemaError = new Ref<>();
-                    for (GraphQLError error : schema.getErrors()) {
-                        SourceLocation firstSourceLocation = error.getLocations().stream().findFirst().orElse(null);
-                        if (firstSourceLocation != null && firstSchemaError.isNull()) {
-                            firstSchemaError.set(firstSourceLocation);
-                        }
-                        if (firstSourceLocation != null && currentFileName.equals(firstSourceLocation.getSourceName())) {
-                            int positionToOffset = getOffsetFromSourceLocation(containingFile, firstSourceLocation);
-                            if (positionToOffset == -1) {
-                                continue;
-                            }
-                            if (containingFile.getContext() != null) {
-                                // injected file, so adjust the position
-                                positionToOffset = positionToOffset - containingFile.getContext().getTextOffset();
-                            }
-                            PsiElement errorPsiElement = containingFile.findElementAt(positionToOffset);
-                            if (errorPsiElement != null) {
-                                PsiElement nextLeaf = PsiTreeUtil.nextVisibleLeaf(errorPsiElement);
-                                if (nextLeaf != null && nextLeaf.getParent() instanceof GraphQLIdentifier) {
-                                    // graphql-errors typically point to the keywords of definitions, so
-                                    // use the definition identifier in that case
-                                    errorPsiElement = nextLeaf.getParent();
-                                }
-                                createErrorAnnotation(annotationHolder, errorPsiElement, error.getMessage());
-                            }
+                    PsiElement errorPsiElement = containingFile.findElementAt(positionToOffset);
+                    if (errorPsiElement != null) {
+                        PsiElement nextLeaf = PsiTreeUtil.nextVisibleLeaf(errorPsiElement);
+                        if (nextLeaf != null && nextLeaf.getParent() instanceof GraphQLIdentifier) {
+                            // graphql-errors typically point to the keywords of definitions, so
+                            // use the definition identifier in that case
+                            errorPsiElement = nextLeaf.getParent();
                         }
+                        createErrorAnnotation(annotationHolder, errorPsiElement, error.getMessage());
                     }
-
-                    userData = Collections.emptyList();
                 }
-                session.putUserData(ERRORS, userData);
-            } catch (SchemaProblem | CancellationException | InvalidSchemaException | AssertException e) {
-                // error in graphql-java, so no validation available at this time
-                session.putUserData(ERRORS, Collections.emptyList());
             }
-
+        } else {
+            final List<? extends GraphQLError> userData = validationResult.validationErrors;
             if (userData != null) {
                 for (GraphQLError userDatum : userData) {
                     if (userDatum instanceof ValidationError) {
@@ -343,7 +372,213 @@ public class GraphQLValidationAnnotator implements Annotator {
                     }
                 }
             }
+        }
+    }
 
+    /**
+     * Validates the top-level definitions of a file one at a time using graphql-java, together with the fragments they transitively spread.
+     * <p>
+     * The errors of definitions whose own text and fragments are unchanged since the previous validation against the same schema are re-used,
+     * such that editing one operation doesn't re-validate every other operation in the file.
+     */
+    private List<ValidationError> validateDefinitions(PsiFile containingFile, GraphQLSchema schema, int lineDelta, int firstLineColumnDelta) {
+        final GraphQLDefinition[] definitions = PsiTreeUtil.getChildrenOfType(containingFile, GraphQLDefinition.class);
+        if (definitions == null) {
+            return Collections.emptyList();
+        }
+        final PsiFile topLevelFile = getTopLevelFile(containingFile);
+        final com.intellij.openapi.editor.Document topLevelDocument = PsiDocumentManager.getInstance(containingFile.getProject()).getDocument(topLevelFile);
+        if (topLevelDocument == null) {
+            return Collections.emptyList();
+        }
+        final GraphQLDefinitionValidationCache cache = GraphQLDefinitionValidationCache.getInstance(topLevelFile, schema);
+        final InjectedLanguageManager injectedLanguageManager = InjectedLanguageManager.getInstance(containingFile.getProject());
+
+        final Map<String, GraphQLFragmentDefinition> fragmentDefinitions = Maps.newHashMap();
+        for (GraphQLDefinition definition : definitions) {
+            if (definition instanceof GraphQLFragmentDefinition) {
+                final String fragmentName = ((GraphQLFragmentDefinition) definition).getName();
+                if (fragmentName != null) {
+                    // graphql-java uses the first fragment with a given name
+                    fragmentDefinitions.putIfAbsent(fragmentName, (GraphQLFragmentDefinition) definition);
+                }
+            }
+        }
+
+        final Map<GraphQLDefinition, String> definitionToContentHash = Maps.newHashMap();
+        final Set<String> usedKeys = Sets.newHashSet();
+        final Map<String, ValidationError> errors = Maps.newLinkedHashMap();
+        GraphQLPsiToLanguage psiToLanguage = null;
+        String validGraphQLText = null;
+        int[] lineStartOffsets = null;
+
+        for (GraphQLDefinition definition : definitions) {
+            ProgressManager.checkCanceled();
+            if (definition instanceof GraphQLTemplateDefinition) {
+                continue;
+            }
+            final List<GraphQLDefinition> validatedDefinitions = getDefinitionWithFragments(definition, fragmentDefinitions);
+            final String key = getValidationKey(validatedDefinitions, definitionToContentHash);
+            usedKeys.add(key);
+
+            final int[] definitionOffsets = new int[validatedDefinitions.size()];
+            for (int i = 0; i < definitionOffsets.length; i++) {
+                final GraphQLDefinition validatedDefinition = validatedDefinitions.get(i);
+                definitionOffsets[i] = injectedLanguageManager.injectedToHost(validatedDefinition, validatedDefinition.getTextRange().getStartOffset());
+            }
+
+            List<ValidationError> definitionErrors = cache.get(key, definitionOffsets, topLevelDocument);
+            if (definitionErrors == null) {
+                Document document = null;
+                if (validatedDefinitions.stream().allMatch(GraphQLPsiToLanguage::canConvert)) {
+                    // create the document from the already parsed PSI instead of parsing the text again
+                    if (psiToLanguage == null) {
+                        psiToLanguage = new GraphQLPsiToLanguage(containingFile, null);
+                    }
+                    try {
+                        document = psiToLanguage.createDocument(validatedDefinitions);
+                    } catch (IllegalArgumentException e) {
+                        // PSI the converter doesn't support, so let graphql-java parse the text instead
+                        LOG.debug("Unable to convert PSI of " + containingFile.getName() + ", parsing the text instead", e);
+                    }
+                }
+                if (document == null) {
+                    if (validGraphQLText == null) {
+                        validGraphQLText = replacePlaceholdersWithValidGraphQL(containingFile);
+                        lineStartOffsets = getLineStartOffsets(validGraphQLText);
+                    }
+                    // only parse the text from the line of the first definition, and offset the source locations by that line
+                    int startOffset = validGraphQLText.length();
+                    for (GraphQLDefinition validatedDefinition : validatedDefinitions) {
+                        startOffset = Math.min(startOffset, validatedDefinition.getTextRange().getStartOffset());
+                    }
+                    int startLine = Arrays.binarySearch(lineStartOffsets, startOffset);
+                    if (startLine < 0) {
+                        // offset within a line, so use the line that starts before it
+                        startLine = -startLine - 2;
+                    }
+                    final String definitionsText = getDefinitionsText(validGraphQLText, validatedDefinitions, lineStartOffsets[startLine]);
+                    try {
+                        document = GraphQLUtil.parseDocument(definitionsText, lineDelta + startLine, startLine == 0 ? firstLineColumnDelta : 0);
+                    } catch (CancellationException e) {
+                        // syntax error in the definition, so no validation available for it at this time
+                    }
+                }
+                definitionErrors = document != null ? validator.validateDocument(schema, document) : Collections.emptyList();
+                cache.put(key, definitionErrors, definitionOffsets, topLevelDocument);
+            }
+            for (ValidationError error : definitionErrors) {
+                // errors in fragments are reported for each definition that spreads them, so only keep one of them
+                errors.putIfAbsent(error.getValidationErrorType() + ":" + error.getLocations() + ":" + error.getDescription(), error);
+            }
+        }
+        cache.removeUnused(usedKeys, containingFile.getContext() != null);
+
+        final List<ValidationError> result = Lists.newArrayList(errors.values());
+        addLoneAnonymousOperationErrors(definitions, result, injectedLanguageManager, topLevelDocument);
+        return result;
+    }
+
+    /**
+     * Gets the definition followed by the fragment definitions in the same file which it transitively spreads
+     */
+    private List<GraphQLDefinition> getDefinitionWithFragments(GraphQLDefinition definition, Map<String, GraphQLFragmentDefinition> fragmentDefinitions) {
+        final List<GraphQLDefinition> result = Lists.newArrayList(definition);
+        for (int i = 0; i < result.size(); i++) {
+            for (GraphQLFragmentSpread fragmentSpread : PsiTreeUtil.findChildrenOfType(result.get(i), GraphQLFragmentSpread.class)) {
+                final String fragmentName = fragmentSpread.getName();
+                final GraphQLFragmentDefinition fragmentDefinition = fragmentName != null ? fragmentDefinitions.get(fragmentName) : null;
+                if (fragmentDefinition != null && !result.contains(fragmentDefinition)) {
+                    result.add(fragmentDefinition);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the cache key of validating a definition with its fragments, based on the content hash of the definition and the fragments
+     */
+    private String getValidationKey(List<GraphQLDefinition> validatedDefinitions, Map<GraphQLDefinition, String> definitionToContentHash) {
+        final List<String> fragmentHashes = Lists.newArrayListWithExpectedSize(validatedDefinitions.size() - 1);
+        for (int i = 1; i < validatedDefinitions.size(); i++) {
+            fragmentHashes.add(getContentHash(validatedDefinitions.get(i), definitionToContentHash));
+        }
+        // the order in which fragments are found doesn't affect the validation result
+        Collections.sort(fragmentHashes);
+        final StringBuilder key = new StringBuilder(getContentHash(validatedDefinitions.get(0), definitionToContentHash));
+        for (String fragmentHash : fragmentHashes) {
+            key.append(':').append(fragmentHash);
+        }
+        return key.toString();
+    }
+
+    private String getContentHash(GraphQLDefinition definition, Map<GraphQLDefinition, String> definitionToContentHash) {
+        return definitionToContentHash.computeIfAbsent(definition, d -> Hashing.murmur3_128().hashString(d.getText(), StandardCharsets.UTF_8).toString());
+    }
+
+    /**
+     * Gets the text from the start offset to the end of the last of the specified definitions, where everything except the definitions
+     * is replaced with whitespace to preserve the source locations relative to the start offset
+     */
+    private String getDefinitionsText(String text, List<GraphQLDefinition> definitions, int startOffset) {
+        int endOffset = startOffset;
+        for (GraphQLDefinition definition : definitions) {
+            endOffset = Math.max(endOffset, definition.getTextRange().getEndOffset());
+        }
+        final StringBuilder buffer = new StringBuilder(endOffset - startOffset);
+        for (int i = startOffset; i < endOffset; i++) {
+            final char c = text.charAt(i);
+            buffer.append(c == '\n' ? c : ' ');
+        }
+        for (GraphQLDefinition definition : definitions) {
+            final TextRange textRange = definition.getTextRange();
+            buffer.replace(textRange.getStartOffset() - startOffset, textRange.getEndOffset() - startOffset, text.substring(textRange.getStartOffset(), textRange.getEndOffset()));
+        }
+        return buffer.toString();
+    }
+
+    private static int[] getLineStartOffsets(String text) {
+        final List<Integer> lineStartOffsets = Lists.newArrayList(0);
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineStartOffsets.add(i + 1);
+            }
+        }
+        return lineStartOffsets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Adds the errors of the graphql-java LoneAnonymousOperation rule, which depends on all the operations in the file
+     * and therefore can't be checked while validating the definitions one at a time
+     */
+    private void addLoneAnonymousOperationErrors(GraphQLDefinition[] definitions,
+                                                 List<ValidationError> errors,
+                                                 InjectedLanguageManager injectedLanguageManager,
+                                                 com.intellij.openapi.editor.Document topLevelDocument) {
+        boolean hasAnonymousOperation = false;
+        int operationCount = 0;
+        for (GraphQLDefinition definition : definitions) {
+            if (!(definition instanceof GraphQLOperationDefinition)) {
+                continue;
+            }
+            final String operationName = definition instanceof GraphQLTypedOperationDefinition ? ((GraphQLTypedOperationDefinition) definition).getName() : null;
+            String message = null;
+            if (operationName == null) {
+                hasAnonymousOperation = true;
+                if (operationCount > 0) {
+                    message = "Anonymous operation with other operations.";
+                }
+            } else if (hasAnonymousOperation) {
+                message = "Operation " + operationName + " is following anonymous operation.";
+            }
+            operationCount++;
+            if (message != null) {
+                final int offset = injectedLanguageManager.injectedToHost(definition, definition.getTextRange().getStartOffset());
+                final int line = topLevelDocument.getLineNumber(offset);
+                final SourceLocation location = new SourceLocation(line + 1, offset - topLevelDocument.getLineStartOffset(line) + 1);
+                errors.add(new ValidationError(ValidationErrorType.LoneAnonymousOperationViolation, location, message));
+            }
         }
     }
 
@@ -528,4 +763,19 @@ public class GraphQLValidationAnnotator implements Annotator {
         return null;
     }
 
+    /**
+     * The result of validating a file against its schema, which is either the errors of the schema itself or the graphql-java validation errors of the file
+     */
+    static class ValidationResult {
+
+        static final ValidationResult EMPTY = new ValidationResult(Collections.emptyList(), Collections.emptyList());
+
+        final List<GraphQLError> schemaErrors;
+        final List<? extends GraphQLError> validationErrors;
+
+        ValidationResult(List<GraphQLError> schemaErrors, List<? extends GraphQLError> validationErrors) {
+            this.schemaErrors = schemaErrors;
+            this.validationErrors = validationErrors;
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide;
+
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.lang.annotation.AnnotationHolder;
+import com.intellij.lang.annotation.ExternalAnnotator;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.util.Ref;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Validates GraphQL files against their schema using graphql-java after the regular highlighting pass, such that a slow schema build or
+ * validation doesn't delay syntax highlighting and the reference errors from {@link GraphQLValidationAnnotator}.
+ * <p>
+ * External annotators aren't invoked for injected GraphQL, so {@link GraphQLValidationAnnotator} validates injected GraphQL itself.
+ */
+public class GraphQLValidationExternalAnnotator extends ExternalAnnotator<PsiFile, GraphQLValidationAnnotator.ValidationResult> {
+
+    private final GraphQLValidationAnnotator validationAnnotator = new GraphQLValidationAnnotator();
+
+    @Nullable
+    @Override
+    public PsiFile collectInformation(@NotNull PsiFile file) {
+        if (file instanceof GraphQLFile && file.getContext() == null) {
+            return file;
+        }
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public GraphQLValidationAnnotator.ValidationResult doAnnotate(PsiFile file) {
+        final Ref<GraphQLValidationAnnotator.ValidationResult> validationResult = Ref.create();
+        // stop validating when the highlighting pass is canceled, without canceling the pass when a write action interrupts the validation
+        final ProgressIndicator daemonIndicator = ProgressManager.getInstance().getProgressIndicator();
+        final ProgressIndicator indicator = daemonIndicator != null ? new SensitiveProgressWrapper(daemonIndicator) : new EmptyProgressIndicator();
+        boolean completed;
+        try {
+            // yield to write actions such that typing isn't blocked by the validation
+            completed = ProgressManager.getInstance().runInReadActionWithWriteActionPriority(() -> {
+                if (file.isValid()) {
+                    validationResult.set(validationAnnotator.validateWithSchema(file));
+                }
+            }, indicator);
+        } catch (IndexNotReadyException e) {
+            completed = false;
+        }
+        // an edit canceled the validation, and the file will be validated again once the edit has been highlighted
+        return completed ? validationResult.get() : null;
+    }
+
+    @Override
+    public void apply(@NotNull PsiFile file, GraphQLValidationAnnotator.ValidationResult validationResult, @NotNull AnnotationHolder holder) {
+        if (validationResult != null && file.isValid()) {
+            validationAnnotator.annotateWithSchemaValidation(file, validationResult, holder);
+        }
+    }
+}
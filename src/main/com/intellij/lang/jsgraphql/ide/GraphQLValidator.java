@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.openapi.diagnostic.Logger;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.AbstractRule;
+import graphql.validation.LanguageTraversal;
+import graphql.validation.RulesVisitor;
+import graphql.validation.ValidationContext;
+import graphql.validation.ValidationError;
+import graphql.validation.ValidationErrorCollector;
+import graphql.validation.rules.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Validates documents using a configurable set of graphql-java validation rules instead of the full rule set of {@link graphql.validation.Validator}.
+ * <p>
+ * When debug logging is enabled for this class, each rule is run separately and the time spent in each rule is logged.
+ */
+class GraphQLValidator {
+
+    private static final Logger LOG = Logger.getInstance(GraphQLValidator.class);
+
+    /**
+     * The graphql-java rules whose errors are reported by {@link GraphQLValidationAnnotator}. The remaining rules, e.g. unknown types, fields
+     * and fragments, are covered by PSI references, and lone anonymous operations are checked by the annotator itself.
+     */
+    static final List<Rule> REPORTED_RULES = ImmutableList.of(
+            new Rule("ArgumentsOfCorrectType", ArgumentsOfCorrectType::new),
+            new Rule("FragmentsOnCompositeType", FragmentsOnCompositeType::new),
+            new Rule("KnownArgumentNames", KnownArgumentNames::new),
+            new Rule("KnownDirectives", KnownDirectives::new),
+            new Rule("NoFragmentCycles", NoFragmentCycles::new),
+            new Rule("NoUndefinedVariables", NoUndefinedVariables::new),
+            new Rule("NoUnusedVariables", NoUnusedVariables::new),
+            new Rule("OverlappingFieldsCanBeMerged", OverlappingFieldsCanBeMerged::new),
+            new Rule("PossibleFragmentSpreads", PossibleFragmentSpreads::new),
+            new Rule("ProvidedNonNullArguments", ProvidedNonNullArguments::new),
+            new Rule("ScalarLeafs", ScalarLeafs::new),
+            new Rule("VariableDefaultValuesOfCorrectType", VariableDefaultValuesOfCorrectType::new),
+            new Rule("VariablesAreInputTypes", VariablesAreInputTypes::new),
+            new Rule("VariableTypesMatchRule", VariableTypesMatchRule::new)
+    );
+
+    // total time spent in each rule since the IDE was started, for the debug log
+    private static final Map<String, AtomicLong> ruleNameToTotalNanos = Maps.newConcurrentMap();
+
+    private final List<Rule> rules;
+
+    GraphQLValidator(@NotNull List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Validates a document using the rules of this validator
+     */
+    @NotNull
+    List<ValidationError> validateDocument(@NotNull GraphQLSchema schema, @NotNull Document document) {
+        if (rules.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (LOG.isDebugEnabled()) {
+            return validateDocumentWithTimings(schema, document);
+        }
+        final ValidationContext validationContext = new ValidationContext(schema, document);
+        final ValidationErrorCollector errorCollector = new ValidationErrorCollector();
+        final List<AbstractRule> ruleInstances = Lists.newArrayListWithExpectedSize(rules.size());
+        for (Rule rule : rules) {
+            ruleInstances.add(rule.factory.apply(validationContext, errorCollector));
+        }
+        new LanguageTraversal().traverse(document, new RulesVisitor(validationContext, ruleInstances));
+        return errorCollector.getErrors();
+    }
+
+    private List<ValidationError> validateDocumentWithTimings(GraphQLSchema schema, Document document) {
+        final ValidationErrorCollector errorCollector = new ValidationErrorCollector();
+        final StringBuilder timings = new StringBuilder("graphql-java validation rule timings:");
+        for (Rule rule : rules) {
+            // each rule gets its own traversal to be able to time it
+            final ValidationContext validationContext = new ValidationContext(schema, document);
+            final AbstractRule ruleInstance = rule.factory.apply(validationContext, errorCollector);
+            final long start = System.nanoTime();
+            new LanguageTraversal().traverse(document, new RulesVisitor(validationContext, Collections.singletonList(ruleInstance)));
+            final long nanos = System.nanoTime() - start;
+            final long totalNanos = ruleNameToTotalNanos.computeIfAbsent(rule.name, name -> new AtomicLong()).addAndGet(nanos);
+            timings.append("\n  ").append(rule.name).append(": ").append(nanos / 1000).append("us (total ").append(totalNanos / 1_000_000).append("ms)");
+        }
+        LOG.debug(timings.toString());
+        return errorCollector.getErrors();
+    }
+
+    /**
+     * A named graphql-java validation rule
+     */
+    static class Rule {
+
+        final String name;
+        final BiFunction<ValidationContext, ValidationErrorCollector, AbstractRule> factory;
+
+        Rule(@NotNull String name, @NotNull BiFunction<ValidationContext, ValidationErrorCollector, AbstractRule> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+}
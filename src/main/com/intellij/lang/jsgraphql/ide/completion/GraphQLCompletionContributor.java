@@ -687,16 +687,14 @@ public class GraphQLCompletionContributor extends CompletionContributor {
                         // fragment must be compatible with the type in scope
                         final TypeDefinitionRegistry typeDefinitionRegistry = GraphQLTypeDefinitionRegistryServiceImpl.getService(completionElement.getProject()).getRegistry(parameters.getOriginalFile());
 
-                        final List<GraphQLFragmentDefinition> knownFragmentDefinitions = GraphQLPsiSearchHelper.getService(completionElement.getProject()).getKnownFragmentDefinitions(parameters.getOriginalFile());
-                        for (GraphQLFragmentDefinition fragmentDefinition : knownFragmentDefinitions) {
-                            final String name = fragmentDefinition.getName();
-                            if (name != null) {
-                                // suggest compatible fragments based on type type conditions
-                                if (isFragmentApplicableInTypeScope(typeDefinitionRegistry, fragmentDefinition, typeScope)) {
-                                    result.addElement(LookupElementBuilder.create(name));
-                                }
+                        final GraphQLType fragmentTypeScope = typeScope;
+                        GraphQLPsiSearchHelper.getService(completionElement.getProject()).processKnownFragmentNames(parameters.getOriginalFile(), (name, typeCondition) -> {
+                            // suggest compatible fragments based on type type conditions
+                            if (isFragmentApplicableInTypeScope(typeDefinitionRegistry, typeCondition, fragmentTypeScope)) {
+                                result.addElement(LookupElementBuilder.create(name));
                             }
-                        }
+                            return true;
+                        });
 
                     }
 
@@ -1129,21 +1127,20 @@ public class GraphQLCompletionContributor extends CompletionContributor {
      * Gets whether the specified fragment candidate is valid to spread inside the specified required type scope
      *
      * @param typeDefinitionRegistry registry with available schema types, used to resolve union members and interface implementations
-     * @param fragmentCandidate      the fragment to check for being able to validly spread under the required type scope
+     * @param fragmentTypeName       the type condition name of the fragment to check for being able to validly spread under the required type scope
      * @param requiredTypeScope      the type scope in which the fragment is a candidate to spread
      * @return true if the fragment candidate is valid to be spread inside the type scope
      */
-    private boolean isFragmentApplicableInTypeScope(TypeDefinitionRegistry typeDefinitionRegistry, GraphQLFragmentDefinition fragmentCandidate, GraphQLType requiredTypeScope) {
+    private boolean isFragmentApplicableInTypeScope(TypeDefinitionRegistry typeDefinitionRegistry, String fragmentTypeName, GraphQLType requiredTypeScope) {
 
         // unwrap non-nullable and list types
         requiredTypeScope = GraphQLUtil.getUnmodifiedType(requiredTypeScope);
 
-        final GraphQLTypeCondition typeCondition = fragmentCandidate.getTypeCondition();
-        if (typeCondition == null || typeCondition.getTypeName() == null) {
+        if (fragmentTypeName.isEmpty()) {
+            // no type condition
             return false;
         }
 
-        final String fragmentTypeName = Optional.ofNullable(typeCondition.getTypeName().getName()).orElse("");
         if (fragmentTypeName.equals(GraphQLUtil.getName(requiredTypeScope))) {
             // direct match, e.g. User scope, fragment on User
             return true;
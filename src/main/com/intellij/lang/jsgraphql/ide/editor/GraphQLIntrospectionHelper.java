@@ -62,6 +62,7 @@ import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.util.*;
 
@@ -208,7 +209,7 @@ public class GraphQLIntrospectionHelper {
      * @param introspectionJson the JSON to sanitize
      * @return a sanitized version where the character ranges are within those allowed by the GraphQL Language Specification
      */
-    private String sanitizeIntrospectionJson(String introspectionJson) {
+    static String sanitizeIntrospectionJson(String introspectionJson) {
         // Strip out emojis (e.g. the one in the GitHub schema) since they're outside the allowed range
         return introspectionJson.replaceAll("[\ud83c\udf00-\ud83d\ude4f]|[\ud83d\ude80-\ud83d\udeff]", "");
     }
@@ -277,6 +278,19 @@ public class GraphQLIntrospectionHelper {
         return sb.toString();
     }
 
+    /**
+     * Prints the introspection result as GraphQL SDL while streaming the JSON, e.g. for large introspection files during schema discovery.
+     * Types are printed in the order of the introspection result and aren't validated as an executable schema.
+     *
+     * @see GraphQLIntrospectionStreamingPrinter
+     */
+    public String printIntrospectionJsonAsGraphQL(@NotNull Reader introspectionJson) throws IOException {
+        final boolean includeDefaultValues = GraphQLSettings.getSettings(myProject).isEnableIntrospectionDefaultValues();
+        final StringBuilder sb = new StringBuilder();
+        new GraphQLIntrospectionStreamingPrinter(includeDefaultValues, DEFAULT_DIRECTIVES).print(introspectionJson, sb);
+        return sb.toString();
+    }
+
     private GraphQLSchema buildIntrospectionSchema(TypeDefinitionRegistry registry) {
         final RuntimeWiring runtimeWiring = EchoingWiringFactory.newEchoingWiring(wiring -> {
             Map<String, ScalarTypeDefinition> scalars = registry.scalars();
@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.editor;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import graphql.schema.idl.ScalarInfo;
+import graphql.util.EscapeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Set;
+
+/**
+ * Prints an introspection result as GraphQL SDL while reading the JSON, one type and directive at a time.
+ * Only the current type is kept in memory as a JSON tree, which bounds the memory used for large introspection files.
+ * <p>
+ * Unlike {@link GraphQLIntrospectionHelper#printIntrospectionJsonAsGraphQL(String)} the types are printed in the
+ * order of the introspection result and aren't validated as an executable schema.
+ */
+public class GraphQLIntrospectionStreamingPrinter {
+
+    // default according to the spec, and as printed by graphql-java for deprecations without a reason
+    private static final String DEFAULT_DEPRECATION_REASON = "No longer supported";
+
+    private final boolean includeDefaultValues;
+    private final Set<String> excludedDirectives;
+
+    public GraphQLIntrospectionStreamingPrinter(boolean includeDefaultValues, @NotNull Set<String> excludedDirectives) {
+        this.includeDefaultValues = includeDefaultValues;
+        this.excludedDirectives = excludedDirectives;
+    }
+
+    /**
+     * Reads the introspection result, either a full query result or the data of one, and appends the SDL to the output
+     *
+     * @throws IllegalArgumentException if the JSON isn't an introspection result
+     */
+    public void print(@NotNull Reader introspectionJson, @NotNull Appendable out) throws IOException {
+        final JsonReader reader = new JsonReader(introspectionJson);
+        reader.setLenient(true);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalArgumentException("Expected introspection result to be a JSON object");
+        }
+        boolean schemaPrinted = false;
+        boolean hasData = false;
+        String errors = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if ("__schema".equals(name) && !schemaPrinted) {
+                printSchema(reader, out);
+                schemaPrinted = true;
+            } else if ("data".equals(name) && !schemaPrinted && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                hasData = true;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("__schema".equals(reader.nextName()) && !schemaPrinted) {
+                        printSchema(reader, out);
+                        schemaPrinted = true;
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if ("errors".equals(name)) {
+                errors = new JsonParser().parse(reader).toString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        if (!schemaPrinted) {
+            if (errors != null) {
+                throw new IllegalArgumentException("Introspection query returned errors: " + errors);
+            }
+            if (!hasData) {
+                throw new IllegalArgumentException("Expected data key to be present in query result");
+            }
+            throw new IllegalArgumentException("Expected __schema key to be present in query result data");
+        }
+    }
+
+    private void printSchema(JsonReader reader, Appendable out) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalArgumentException("Expected __schema to be a JSON object");
+        }
+        String queryType = null;
+        String mutationType = null;
+        String subscriptionType = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "queryType":
+                    queryType = getName(new JsonParser().parse(reader));
+                    break;
+                case "mutationType":
+                    mutationType = getName(new JsonParser().parse(reader));
+                    break;
+                case "subscriptionType":
+                    subscriptionType = getName(new JsonParser().parse(reader));
+                    break;
+                case "types":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        final JsonElement type = new JsonParser().parse(reader);
+                        if (type.isJsonObject()) {
+                            printType(type.getAsJsonObject(), out);
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                case "directives":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        final JsonElement directive = new JsonParser().parse(reader);
+                        if (directive.isJsonObject()) {
+                            printDirective(directive.getAsJsonObject(), out);
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        // the root operation types can appear after the types in the JSON, so the schema definition is printed last
+        if (queryType == null) {
+            throw new IllegalArgumentException("Expected queryType to be present in the introspection __schema");
+        }
+        out.append("schema {\n");
+        out.append("  query: ").append(queryType).append("\n");
+        if (mutationType != null) {
+            out.append("  mutation: ").append(mutationType).append("\n");
+        }
+        if (subscriptionType != null) {
+            out.append("  subscription: ").append(subscriptionType).append("\n");
+        }
+        out.append("}\n");
+    }
+
+    private void printType(JsonObject type, Appendable out) throws IOException {
+        final String name = getString(type, "name");
+        final String kind = getString(type, "kind");
+        if (name == null || kind == null || name.startsWith("__")) {
+            return;
+        }
+        switch (kind) {
+            case "SCALAR":
+                if (ScalarInfo.isGraphqlSpecifiedScalar(name)) {
+                    return;
+                }
+                printDescription(type, "", out);
+                out.append("scalar ").append(name).append("\n\n");
+                break;
+            case "OBJECT":
+            case "INTERFACE":
+                printDescription(type, "", out);
+                out.append("OBJECT".equals(kind) ? "type " : "interface ").append(name);
+                final JsonArray interfaces = getArray(type, "interfaces");
+                if (hasMembers(interfaces)) {
+                    out.append(" implements ");
+                    printNames(interfaces, " & ", out);
+                }
+                final JsonArray fields = getArray(type, "fields");
+                if (hasMembers(fields)) {
+                    out.append(" {\n");
+                    for (JsonElement field : fields) {
+                        if (field.isJsonObject()) {
+                            printField(field.getAsJsonObject(), out);
+                        }
+                    }
+                    out.append("}");
+                }
+                out.append("\n\n");
+                break;
+            case "UNION":
+                printDescription(type, "", out);
+                out.append("union ").append(name);
+                final JsonArray possibleTypes = getArray(type, "possibleTypes");
+                if (hasMembers(possibleTypes)) {
+                    out.append(" = ");
+                    printNames(possibleTypes, " | ", out);
+                }
+                out.append("\n\n");
+                break;
+            case "ENUM":
+                printDescription(type, "", out);
+                out.append("enum ").append(name);
+                final JsonArray enumValues = getArray(type, "enumValues");
+                if (hasMembers(enumValues)) {
+                    out.append(" {\n");
+                    for (JsonElement enumValue : enumValues) {
+                        if (enumValue.isJsonObject()) {
+                            final JsonObject value = enumValue.getAsJsonObject();
+                            printDescription(value, "  ", out);
+                            out.append("  ").append(getString(value, "name"));
+                            printDeprecation(value, out);
+                            out.append("\n");
+                        }
+                    }
+                    out.append("}");
+                }
+                out.append("\n\n");
+                break;
+            case "INPUT_OBJECT":
+                printDescription(type, "", out);
+                out.append("input ").append(name);
+                final JsonArray inputFields = getArray(type, "inputFields");
+                if (hasMembers(inputFields)) {
+                    out.append(" {\n");
+                    for (JsonElement inputField : inputFields) {
+                        if (inputField.isJsonObject()) {
+                            printDescription(inputField.getAsJsonObject(), "  ", out);
+                            out.append("  ");
+                            printInputValue(inputField.getAsJsonObject(), out);
+                            out.append("\n");
+                        }
+                    }
+                    out.append("}");
+                }
+                out.append("\n\n");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown kind '" + kind + "' of introspection type '" + name + "'");
+        }
+    }
+
+    private void printField(JsonObject field, Appendable out) throws IOException {
+        printDescription(field, "  ", out);
+        out.append("  ").append(getString(field, "name"));
+        printArguments(field, out);
+        out.append(": ").append(printTypeRef(getObject(field, "type")));
+        printDeprecation(field, out);
+        out.append("\n");
+    }
+
+    private void printDirective(JsonObject directive, Appendable out) throws IOException {
+        final String name = getString(directive, "name");
+        if (name == null || excludedDirectives.contains(name)) {
+            return;
+        }
+        printDescription(directive, "", out);
+        out.append("directive @").append(name);
+        printArguments(directive, out);
+        final JsonElement repeatable = directive.get("isRepeatable");
+        if (repeatable != null && repeatable.isJsonPrimitive() && repeatable.getAsBoolean()) {
+            out.append(" repeatable");
+        }
+        final JsonArray locations = getArray(directive, "locations");
+        if (hasMembers(locations)) {
+            out.append(" on ");
+            for (int i = 0; i < locations.size(); i++) {
+                if (i > 0) {
+                    out.append(" | ");
+                }
+                out.append(locations.get(i).getAsString());
+            }
+        }
+        out.append("\n\n");
+    }
+
+    private void printArguments(JsonObject owner, Appendable out) throws IOException {
+        final JsonArray args = getArray(owner, "args");
+        if (!hasMembers(args)) {
+            return;
+        }
+        out.append("(");
+        boolean first = true;
+        for (JsonElement arg : args) {
+            if (!arg.isJsonObject()) {
+                continue;
+            }
+            if (!first) {
+                out.append(", ");
+            }
+            first = false;
+            final String description = getDescription(arg.getAsJsonObject());
+            if (description != null) {
+                // inline descriptions keep the argument list on a single line
+                out.append("\"").append(EscapeUtil.escapeJsonString(description)).append("\" ");
+            }
+            printInputValue(arg.getAsJsonObject(), out);
+        }
+        out.append(")");
+    }
+
+    private void printInputValue(JsonObject inputValue, Appendable out) throws IOException {
+        out.append(getString(inputValue, "name")).append(": ").append(printTypeRef(getObject(inputValue, "type")));
+        if (includeDefaultValues) {
+            final String defaultValue = getString(inputValue, "defaultValue");
+            if (defaultValue != null) {
+                // introspection default values are already printed as GraphQL literals
+                out.append(" = ").append(GraphQLIntrospectionHelper.sanitizeIntrospectionJson(defaultValue));
+            }
+        }
+    }
+
+    private static void printDeprecation(JsonObject element, Appendable out) throws IOException {
+        final JsonElement isDeprecated = element.get("isDeprecated");
+        if (isDeprecated == null || !isDeprecated.isJsonPrimitive() || !isDeprecated.getAsBoolean()) {
+            return;
+        }
+        String reason = getString(element, "deprecationReason");
+        if (reason == null) {
+            reason = DEFAULT_DEPRECATION_REASON;
+        }
+        out.append(" @deprecated(reason: \"").append(EscapeUtil.escapeJsonString(GraphQLIntrospectionHelper.sanitizeIntrospectionJson(reason))).append("\")");
+    }
+
+    private static void printDescription(JsonObject element, String indent, Appendable out) throws IOException {
+        final String description = getDescription(element);
+        if (description == null) {
+            return;
+        }
+        if (description.contains("\n")) {
+            out.append(indent).append("\"\"\"\n");
+            for (String line : description.replace("\"\"\"", "\\\"\"\"").split("\n", -1)) {
+                out.append(indent).append(line).append("\n");
+            }
+            out.append(indent).append("\"\"\"\n");
+        } else {
+            out.append(indent).append("\"").append(EscapeUtil.escapeJsonString(description)).append("\"\n");
+        }
+    }
+
+    private static String printTypeRef(@Nullable JsonObject typeRef) {
+        if (typeRef == null) {
+            throw new IllegalArgumentException("Expected type reference to be present in the introspection result");
+        }
+        final String kind = getString(typeRef, "kind");
+        final JsonObject ofType = getObject(typeRef, "ofType");
+        if ("NON_NULL".equals(kind)) {
+            return printTypeRef(ofType) + "!";
+        }
+        if ("LIST".equals(kind)) {
+            return "[" + printTypeRef(ofType) + "]";
+        }
+        final String name = getString(typeRef, "name");
+        if (name == null) {
+            throw new IllegalArgumentException("Expected named type reference to have a name in the introspection result");
+        }
+        return name;
+    }
+
+    private static void printNames(JsonArray typeRefs, String separator, Appendable out) throws IOException {
+        boolean first = true;
+        for (JsonElement typeRef : typeRefs) {
+            final String name = getName(typeRef);
+            if (name != null) {
+                if (!first) {
+                    out.append(separator);
+                }
+                first = false;
+                out.append(name);
+            }
+        }
+    }
+
+    private static boolean hasMembers(@Nullable JsonArray array) {
+        return array != null && array.size() > 0;
+    }
+
+    @Nullable
+    private static String getDescription(JsonObject element) {
+        final String description = getString(element, "description");
+        if (description == null || description.trim().isEmpty()) {
+            return null;
+        }
+        return GraphQLIntrospectionHelper.sanitizeIntrospectionJson(description);
+    }
+
+    @Nullable
+    private static String getName(JsonElement typeRef) {
+        return typeRef != null && typeRef.isJsonObject() ? getString(typeRef.getAsJsonObject(), "name") : null;
+    }
+
+    @Nullable
+    private static String getString(JsonObject object, String property) {
+        final JsonElement value = object.get(property);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    @Nullable
+    private static JsonObject getObject(JsonObject object, String property) {
+        final JsonElement value = object.get(property);
+        return value != null && value.isJsonObject() ? value.getAsJsonObject() : null;
+    }
+
+    @Nullable
+    private static JsonArray getArray(JsonObject object, String property) {
+        final JsonElement value = object.get(property);
+        return value != null && value.isJsonArray() ? value.getAsJsonArray() : null;
+    }
+}
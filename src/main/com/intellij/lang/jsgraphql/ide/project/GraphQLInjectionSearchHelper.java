@@ -7,10 +7,12 @@
  */
 package com.intellij.lang.jsgraphql.ide.project;
 
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiLanguageInjectionHost;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
 
 import java.util.function.Consumer;
 
@@ -30,6 +32,24 @@ public interface GraphQLInjectionSearchHelper {
      */
     void processInjectedGraphQLPsiFiles(PsiElement scopedElement, GlobalSearchScope schemaScope, Consumer<PsiFile> consumer);
 
+    /**
+     * Process injected GraphQL PsiFiles that contain type system definitions, skipping files and injections that only contain
+     * executable definitions such as operations and fragments
+     *
+     * @param scopedElement the starting point of the enumeration settings the scopedElement of the processing
+     * @param schemaScope   the search scope to use for limiting the schema definitions
+     * @param consumer      a consumer that will be invoked for each injected GraphQL PsiFile with type system definitions
+     */
+    void processInjectedTypeSystemDefinitionPsiFiles(PsiElement scopedElement, GlobalSearchScope schemaScope, Consumer<PsiFile> consumer);
+
+    /**
+     * Process the files that contain injected GraphQL type system definitions, without loading their PSI
+     *
+     * @param schemaScope the search scope to use for limiting the files
+     * @param processor   a processor that will be invoked for each file with injected type system definitions
+     */
+    void processFilesWithInjectedTypeSystemDefinitions(GlobalSearchScope schemaScope, Processor<VirtualFile> processor);
+
     /**
      * Inline-replaces the use of escaped string quotes which delimit GraphQL injections, e.g. an escaped backtick '\`'
      * in JavaScript tagged template literals, such that the injected GraphQL text represents valid GraphQL
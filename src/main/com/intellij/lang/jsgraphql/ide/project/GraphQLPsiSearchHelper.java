@@ -23,6 +23,7 @@ import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLIdentifierIndex;
 import com.intellij.lang.jsgraphql.ide.project.scopes.ConditionalGlobalSearchScope;
 import com.intellij.lang.jsgraphql.ide.references.GraphQLFindUsagesUtil;
 import com.intellij.lang.jsgraphql.psi.*;
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaChangeListener;
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaKeys;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
@@ -35,19 +36,25 @@ import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.project.IndexNotReadyException;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
 import com.intellij.psi.*;
-import com.intellij.psi.impl.AnyPsiChangeListener;
-import com.intellij.psi.impl.PsiManagerImpl;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.GlobalSearchScopesCore;
 import com.intellij.psi.search.scope.packageSet.NamedScope;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.PairProcessor;
 import com.intellij.util.Processor;
 import com.intellij.util.indexing.FileBasedIndex;
 import org.apache.commons.compress.utils.IOUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -64,16 +71,25 @@ public class GraphQLPsiSearchHelper {
 
     private static final Key<PsiFile> GRAPHQL_BUILT_IN_SCHEMA_PSI_FILE = Key.create("JSGraphQL.built-in.schema.psi-file");
     private static final Key<PsiFile> RELAY_MODERN_DIRECTIVES_SCHEMA_PSI_FILE = Key.create("JSGraphQL.relay.modern.directives.schema.psi-file");
+    private static final Key<Map<String, List<PsiNamedElement>>> BUILT_IN_SCHEMA_NAME_TO_ELEMENTS = Key.create("JSGraphQL.built-in.schema.name-to-elements");
 
     private final static Logger log = Logger.getInstance(GraphQLPsiSearchHelper.class);
 
     private final Project myProject;
     private final GraphQLSettings mySettings;
     private final PluginDescriptor pluginDescriptor;
+    // schema scopes only depend on the graphql-config model and the file location, so they're kept until the configuration changes
     private final Map<String, GlobalSearchScope> fileNameToSchemaScope = Maps.newConcurrentMap();
+    // files in the same config scope share one schema scope instance, which is used as the key of the scope's registry and schema
+    private final Map<NamedScope, GlobalSearchScope> namedScopeToSchemaScope = Maps.newConcurrentMap();
     private final GlobalSearchScope searchScope;
     private final GlobalSearchScope allBuiltInSchemaScopes;
     private final GraphQLConfigManager graphQLConfigManager;
+    private volatile long schemaScopesModificationCount = -1;
+    // the indexed fragment names of each schema scope, which are kept until a GraphQL file, injection or file on disk changes
+    private final Map<GlobalSearchScope, List<String>> schemaScopeToFragmentNames = Maps.newConcurrentMap();
+    private final ModificationTracker graphQLModificationTracker;
+    private volatile long fragmentNamesModificationCount = -1;
 
     private GraphQLFile defaultProjectFile;
     private PsiManager psiManager;
@@ -92,6 +108,7 @@ public class GraphQLPsiSearchHelper {
         graphQLInjectionSearchHelper = ServiceManager.getService(GraphQLInjectionSearchHelper.class);
         injectedLanguageManager = InjectedLanguageManager.getInstance(myProject);
         graphQLConfigManager = GraphQLConfigManager.getService(myProject);
+        graphQLModificationTracker = GraphQLSchemaChangeListener.getService(myProject).getGraphQLModificationTracker();
         pluginDescriptor = PluginManager.getPlugin(PluginId.getId("com.intellij.lang.jsgraphql"));
 
         final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(myProject);
@@ -107,11 +124,16 @@ public class GraphQLPsiSearchHelper {
 
         final FileType[] searchScopeFileTypes = GraphQLFindUsagesUtil.getService().getIncludedFileTypes().toArray(FileType.EMPTY_ARRAY);
         searchScope = GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.projectScope(myProject), searchScopeFileTypes).union(allBuiltInSchemaScopes);
-        project.getMessageBus().connect().subscribe(PsiManagerImpl.ANY_PSI_CHANGE_TOPIC, new AnyPsiChangeListener.Adapter() {
+        project.getMessageBus().connect().subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
             @Override
-            public void beforePsiChanged(boolean isPhysical) {
-                // clear the cache on each PSI change
-                fileNameToSchemaScope.clear();
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileMoveEvent || (event instanceof VFilePropertyChangeEvent && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName()))) {
+                        // moved and renamed files and directories can end up in other scopes
+                        fileNameToSchemaScope.clear();
+                        break;
+                    }
+                }
             }
         });
     }
@@ -128,19 +150,39 @@ public class GraphQLPsiSearchHelper {
      */
     public GlobalSearchScope getSchemaScope(PsiElement element) {
 
-        return fileNameToSchemaScope.computeIfAbsent(GraphQLPsiUtil.getFileName(element.getContainingFile()), fileName -> {
+        final long modificationCount = graphQLConfigManager.getConfigurationModificationTracker().getModificationCount();
+        if (modificationCount != schemaScopesModificationCount) {
+            fileNameToSchemaScope.clear();
+            namedScopeToSchemaScope.clear();
+            schemaScopesModificationCount = modificationCount;
+        }
 
-            final VirtualFile virtualFile = GraphQLPsiUtil.getVirtualFileFromPsiFile(element.getContainingFile());
-            final NamedScope schemaScope = graphQLConfigManager.getSchemaScope(virtualFile);
-            if (schemaScope != null) {
-                final GlobalSearchScope filterSearchScope = GlobalSearchScopesCore.filterScope(myProject, schemaScope);
-                return searchScope.intersectWith(filterSearchScope.union(allBuiltInSchemaScopes));
+        final String fileName = GraphQLPsiUtil.getFileName(element.getContainingFile());
+        GlobalSearchScope schemaScope = fileNameToSchemaScope.get(fileName);
+        if (schemaScope == null) {
+            schemaScope = computeSchemaScope(element);
+            if (graphQLConfigManager.getConfigurationModificationTracker().getModificationCount() == modificationCount) {
+                // only cache the scope if the configuration didn't change while computing it
+                fileNameToSchemaScope.putIfAbsent(fileName, schemaScope);
             }
+        }
+        return schemaScope;
 
-            // default is entire project limited by relevant file types
-            return searchScope;
+    }
 
-        });
+    private GlobalSearchScope computeSchemaScope(PsiElement element) {
+
+        final VirtualFile virtualFile = GraphQLPsiUtil.getVirtualFileFromPsiFile(element.getContainingFile());
+        final NamedScope schemaScope = graphQLConfigManager.getSchemaScope(virtualFile);
+        if (schemaScope != null) {
+            return namedScopeToSchemaScope.computeIfAbsent(schemaScope, namedScope -> {
+                final GlobalSearchScope filterSearchScope = GlobalSearchScopesCore.filterScope(myProject, namedScope);
+                return searchScope.intersectWith(filterSearchScope.union(allBuiltInSchemaScopes));
+            });
+        }
+
+        // default is entire project limited by relevant file types
+        return searchScope;
 
     }
 
@@ -171,34 +213,16 @@ public class GraphQLPsiSearchHelper {
                 fragmentDefinitions.addAll(PsiTreeUtil.getChildrenOfTypeAsList(scopedElement.getContainingFile().getOriginalFile(), GraphQLFragmentDefinition.class));
             }
 
-            final PsiManager psiManager = PsiManager.getInstance(myProject);
-
-            FileBasedIndex.getInstance().processFilesContainingAllKeys(GraphQLFragmentNameIndex.NAME, Collections.singleton(GraphQLFragmentNameIndex.HAS_FRAGMENTS), schemaScope, null, virtualFile -> {
-
-                final PsiFile psiFile = psiManager.findFile(virtualFile);
-                if (psiFile != null) {
-                    final Ref<PsiRecursiveElementVisitor> identifierVisitor = Ref.create();
-                    identifierVisitor.set(new PsiRecursiveElementVisitor() {
-                        @Override
-                        public void visitElement(PsiElement element) {
-                            if (element instanceof GraphQLDefinition) {
-                                if (element instanceof GraphQLFragmentDefinition) {
-                                    fragmentDefinitions.add((GraphQLFragmentDefinition) element);
-                                }
-                                return; // no need to visit deeper than definitions since fragments are top level
-                            } else if (element instanceof PsiLanguageInjectionHost) {
-                                if (visitLanguageInjectionHost((PsiLanguageInjectionHost) element, identifierVisitor)) {
-                                    return;
-                                }
-                            }
-                            super.visitElement(element);
-                        }
-                    });
-                    psiFile.accept(identifierVisitor.get());
-                }
-
-                return true; // process all known fragments
-            });
+            final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+            for (String fragmentName : getIndexedFragmentNames(schemaScope)) {
+                fileBasedIndex.processValues(GraphQLFragmentNameIndex.NAME, fragmentName, null, (virtualFile, fragmentLocations) -> {
+                    final PsiFile psiFile = psiManager.findFile(virtualFile);
+                    if (psiFile != null) {
+                        fragmentDefinitions.addAll(findFragmentDefinitions(psiFile, fragmentName, fragmentLocations));
+                    }
+                    return true; // process all known fragments
+                }, schemaScope);
+            }
             return fragmentDefinitions;
         } catch (IndexNotReadyException e) {
             // can't search yet (e.g. during project startup)
@@ -206,6 +230,118 @@ public class GraphQLPsiSearchHelper {
         return Collections.emptyList();
     }
 
+    /**
+     * Processes the names and type conditions of the fragment definitions inside the scope of the specified element.
+     * The fragments are read from the index, so the files that define them aren't loaded.
+     *
+     * @param scopedElement the starting point for finding known fragment definitions
+     * @param processor     processor called with the name and type condition name of each fragment, where the type condition name is empty
+     *                      if the fragment doesn't declare a type condition. Processing stops if the processor returns false.
+     */
+    public void processKnownFragmentNames(PsiElement scopedElement, PairProcessor<String, String> processor) {
+        try {
+            GlobalSearchScope schemaScope = getSchemaScope(scopedElement);
+            if (GraphQLFileType.isGraphQLScratchFile(myProject, GraphQLPsiUtil.getVirtualFileFromPsiFile(scopedElement.getContainingFile()))) {
+                // include the fragments defined in the currently edited scratch file (scratch files don't appear to be indexed)
+                for (GraphQLFragmentDefinition fragmentDefinition : PsiTreeUtil.getChildrenOfTypeAsList(scopedElement.getContainingFile().getOriginalFile(), GraphQLFragmentDefinition.class)) {
+                    final String fragmentName = fragmentDefinition.getName();
+                    if (fragmentName != null && !processor.process(fragmentName, GraphQLFragmentNameIndex.getTypeConditionName(fragmentDefinition))) {
+                        return;
+                    }
+                }
+            }
+
+            final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+            for (String fragmentName : getIndexedFragmentNames(schemaScope)) {
+                final boolean continueProcessing = fileBasedIndex.processValues(GraphQLFragmentNameIndex.NAME, fragmentName, null, (virtualFile, fragmentLocations) -> {
+                    for (String typeCondition : fragmentLocations.getTypeConditions()) {
+                        if (!processor.process(fragmentName, typeCondition)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }, schemaScope);
+                if (!continueProcessing) {
+                    return;
+                }
+            }
+        } catch (IndexNotReadyException e) {
+            // can't search yet (e.g. during project startup)
+        }
+    }
+
+    /**
+     * Gets the names of the indexed fragments in a scope. The names may include fragments that have since been removed from the scope.
+     * <p>
+     * The names are cached until a GraphQL file or injection is edited, or a file changes on disk, which includes added files and
+     * files with injections that were changed outside the editor.
+     */
+    private List<String> getIndexedFragmentNames(GlobalSearchScope schemaScope) {
+        final long modificationCount = getFragmentNamesModificationCount();
+        if (modificationCount != fragmentNamesModificationCount) {
+            schemaScopeToFragmentNames.clear();
+            fragmentNamesModificationCount = modificationCount;
+        }
+        List<String> fragmentNames = schemaScopeToFragmentNames.get(schemaScope);
+        if (fragmentNames == null) {
+            final List<String> indexedFragmentNames = Lists.newArrayList();
+            FileBasedIndex.getInstance().processAllKeys(GraphQLFragmentNameIndex.NAME, fragmentName -> {
+                indexedFragmentNames.add(fragmentName);
+                return true;
+            }, schemaScope, null);
+            fragmentNames = Collections.unmodifiableList(indexedFragmentNames);
+            if (getFragmentNamesModificationCount() == modificationCount) {
+                // only cache the names if nothing changed while reading them from the index
+                schemaScopeToFragmentNames.putIfAbsent(schemaScope, fragmentNames);
+            }
+        }
+        return fragmentNames;
+    }
+
+    private long getFragmentNamesModificationCount() {
+        return graphQLModificationTracker.getModificationCount() + VirtualFileManager.getInstance().getModificationCount();
+    }
+
+    /**
+     * Finds the fragment definitions with the specified name in a file, using the indexed offsets of the fragment names.
+     * Falls back to visiting the file if the offsets no longer match, e.g. when the file has been modified since it was indexed.
+     */
+    private List<GraphQLFragmentDefinition> findFragmentDefinitions(PsiFile psiFile, String fragmentName, GraphQLFragmentNameIndex.FragmentLocations fragmentLocations) {
+        final List<GraphQLFragmentDefinition> fragmentDefinitions = Lists.newArrayList();
+        final List<PsiNamedElement> identifiers = findIdentifiersAtOffsets(psiFile, fragmentName, fragmentLocations.getOffsets());
+        if (identifiers != null) {
+            for (PsiNamedElement identifier : identifiers) {
+                if (!(identifier.getParent() instanceof GraphQLFragmentDefinition)) {
+                    fragmentDefinitions.clear();
+                    break;
+                }
+                fragmentDefinitions.add((GraphQLFragmentDefinition) identifier.getParent());
+            }
+            if (!fragmentDefinitions.isEmpty()) {
+                return fragmentDefinitions;
+            }
+        }
+        final Ref<PsiRecursiveElementVisitor> identifierVisitor = Ref.create();
+        identifierVisitor.set(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element instanceof GraphQLDefinition) {
+                    if (element instanceof GraphQLFragmentDefinition && fragmentName.equals(((GraphQLFragmentDefinition) element).getName())) {
+                        fragmentDefinitions.add((GraphQLFragmentDefinition) element);
+                    }
+                    return; // no need to visit deeper than definitions since fragments are top level
+                } else if (element instanceof PsiLanguageInjectionHost) {
+                    if (visitLanguageInjectionHost((PsiLanguageInjectionHost) element, identifierVisitor)) {
+                        return;
+                    }
+                }
+                super.visitElement(element);
+            }
+        });
+        psiFile.accept(identifierVisitor.get());
+        return fragmentDefinitions;
+    }
+
     /**
      * Visits the potential GraphQL injection inside an injection host
      *
@@ -244,89 +380,152 @@ public class GraphQLPsiSearchHelper {
     /**
      * Processes GraphQL identifiers whose name matches the specified word within the given schema scope.
      *
-     * @param schemaScope the schema scope which limits the processing
-     * @param word        the word to match identifiers for
-     * @param processor   processor called for all GraphQL identifiers whose name match the specified word
+     * @param schemaScope     the schema scope which limits the processing
+     * @param word            the word to match identifiers for
+     * @param definitionKinds the kinds of definitions to locate using the offsets in the index, or null to visit all elements in the matching files
+     * @param processor       processor called for all GraphQL identifiers whose name match the specified word
      * @see GraphQLIdentifierIndex
      */
-    private void processElementsWithWordUsingIdentifierIndex(GlobalSearchScope schemaScope, String word, Processor<PsiNamedElement> processor) {
-        FileBasedIndex.getInstance().getFilesWithKey(GraphQLIdentifierIndex.NAME, Collections.singleton(word), virtualFile -> {
+    private void processElementsWithWordUsingIdentifierIndex(GlobalSearchScope schemaScope, String word, @Nullable Set<GraphQLIdentifierIndex.IdentifierKind> definitionKinds, Processor<PsiNamedElement> processor) {
+        FileBasedIndex.getInstance().processValues(GraphQLIdentifierIndex.NAME, word, null, (virtualFile, identifierLocations) -> {
+            if (definitionKinds != null && identifierLocations.isLocated() && !identifierLocations.hasAnyKind(definitionKinds)) {
+                // the file doesn't define the word as any of the requested kinds
+                return true;
+            }
             final PsiFile psiFile = psiManager.findFile(virtualFile);
-            final Ref<Boolean> continueProcessing = Ref.create(true);
-            if (psiFile != null) {
-                final Set<GraphQLFile> introspectionFiles = Sets.newHashSetWithExpectedSize(1);
-                final Ref<PsiRecursiveElementVisitor> identifierVisitor = Ref.create();
-                identifierVisitor.set(new PsiRecursiveElementVisitor() {
-                    @Override
-                    public void visitElement(PsiElement element) {
-                        if (!continueProcessing.get()) {
-                            return; // done visiting as the processor returned false
-                        }
-                        if (element instanceof PsiNamedElement) {
-                            final String name = ((PsiNamedElement) element).getName();
-                            if (word.equals(name)) {
-                                // found an element with a name that matches
-                                continueProcessing.set(processor.process((PsiNamedElement) element));
-                            }
-                            if (!continueProcessing.get()) {
-                                return; // no need to visit other elements
-                            }
-                        } else if (element instanceof JsonStringLiteral) {
-                            final GraphQLFile graphQLFile = element.getContainingFile().getUserData(GraphQLSchemaKeys.GRAPHQL_INTROSPECTION_JSON_TO_SDL);
-                            if (graphQLFile != null && introspectionFiles.add(graphQLFile)) {
-                                // index the associated introspection SDL from a JSON introspection result file
-                                graphQLFile.accept(identifierVisitor.get());
-                            }
-                            return; // no need to visit deeper
-                        } else if (element instanceof PsiLanguageInjectionHost) {
-                            if (visitLanguageInjectionHost((PsiLanguageInjectionHost) element, identifierVisitor)) {
-                                return;
-                            }
+            if (psiFile == null) {
+                return true;
+            }
+            if (definitionKinds != null && identifierLocations.isLocated()) {
+                final List<PsiNamedElement> definitions = findIdentifiersAtOffsets(psiFile, word, identifierLocations.getDefinitionOffsets(definitionKinds));
+                if (definitions != null) {
+                    for (PsiNamedElement definition : definitions) {
+                        if (!processor.process(definition)) {
+                            return false;
                         }
-                        super.visitElement(element);
                     }
-                });
-
-                psiFile.accept(identifierVisitor.get());
+                    return true;
+                }
+                // the offsets don't match the PSI, e.g. due to uncommitted changes, so fall back to visiting the file
             }
-            return continueProcessing.get();
+            return processElementsWithWordInFile(psiFile, word, processor);
         }, schemaScope);
     }
 
+    /**
+     * Finds the identifiers at the specified offsets in a GraphQL file or host file of GraphQL injections
+     *
+     * @return the identifiers, or null if one or more offsets don't point to an identifier with the specified name
+     */
+    @Nullable
+    private List<PsiNamedElement> findIdentifiersAtOffsets(PsiFile psiFile, String word, List<Integer> offsets) {
+        final List<PsiNamedElement> identifiers = Lists.newArrayListWithCapacity(offsets.size());
+        for (Integer offset : offsets) {
+            final PsiElement leaf = psiFile instanceof GraphQLFile ? psiFile.findElementAt(offset) : injectedLanguageManager.findInjectedElementAt(psiFile, offset);
+            final GraphQLIdentifier identifier = PsiTreeUtil.getParentOfType(leaf, GraphQLIdentifier.class, false);
+            if (!(identifier instanceof PsiNamedElement) || !word.equals(((PsiNamedElement) identifier).getName())) {
+                return null;
+            }
+            identifiers.add((PsiNamedElement) identifier);
+        }
+        return identifiers;
+    }
+
+    /**
+     * Visits a file and its GraphQL injections and introspection SDL to process the named elements that match the specified word
+     *
+     * @return false if the processor returned false to stop processing, true otherwise
+     */
+    private boolean processElementsWithWordInFile(PsiFile psiFile, String word, Processor<PsiNamedElement> processor) {
+        final Ref<Boolean> continueProcessing = Ref.create(true);
+        final Set<GraphQLFile> introspectionFiles = Sets.newHashSetWithExpectedSize(1);
+        final Ref<PsiRecursiveElementVisitor> identifierVisitor = Ref.create();
+        identifierVisitor.set(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (!continueProcessing.get()) {
+                    return; // done visiting as the processor returned false
+                }
+                if (element instanceof PsiNamedElement) {
+                    final String name = ((PsiNamedElement) element).getName();
+                    if (word.equals(name)) {
+                        // found an element with a name that matches
+                        continueProcessing.set(processor.process((PsiNamedElement) element));
+                    }
+                    if (!continueProcessing.get()) {
+                        return; // no need to visit other elements
+                    }
+                } else if (element instanceof JsonStringLiteral) {
+                    final GraphQLFile graphQLFile = element.getContainingFile().getUserData(GraphQLSchemaKeys.GRAPHQL_INTROSPECTION_JSON_TO_SDL);
+                    if (graphQLFile != null && introspectionFiles.add(graphQLFile)) {
+                        // index the associated introspection SDL from a JSON introspection result file
+                        graphQLFile.accept(identifierVisitor.get());
+                    }
+                    return; // no need to visit deeper
+                } else if (element instanceof PsiLanguageInjectionHost) {
+                    if (visitLanguageInjectionHost((PsiLanguageInjectionHost) element, identifierVisitor)) {
+                        return;
+                    }
+                }
+                super.visitElement(element);
+            }
+        });
+
+        psiFile.accept(identifierVisitor.get());
+        return continueProcessing.get();
+    }
+
     /**
      * Processes all named elements that match the specified word, e.g. the declaration of a type name
      */
     public void processElementsWithWord(PsiElement scopedElement, String word, Processor<PsiNamedElement> processor) {
+        processElementsWithWord(scopedElement, word, null, processor);
+    }
+
+    /**
+     * Processes the definitions of the specified kinds whose name match the specified word, e.g. the declaration of a type name.
+     * Compared to {@link #processElementsWithWord(PsiElement, String, Processor)} the definitions are located using the offsets in the
+     * identifier index, so only files that declare the word need to be loaded, and without visiting their entire PSI tree.
+     * Other named elements can still be passed to the processor, e.g. from the built-in schemas, so the processor should check the elements it receives.
+     */
+    public void processDefinitionsWithWord(PsiElement scopedElement, String word, @NotNull Set<GraphQLIdentifierIndex.IdentifierKind> definitionKinds, Processor<PsiNamedElement> processor) {
+        processElementsWithWord(scopedElement, word, definitionKinds, processor);
+    }
+
+    private void processElementsWithWord(PsiElement scopedElement, String word, @Nullable Set<GraphQLIdentifierIndex.IdentifierKind> definitionKinds, Processor<PsiNamedElement> processor) {
         try {
             final GlobalSearchScope schemaScope = getSchemaScope(scopedElement);
 
-            processElementsWithWordUsingIdentifierIndex(schemaScope, word, processor);
+            processElementsWithWordUsingIdentifierIndex(schemaScope, word, definitionKinds, processor);
 
-            // also include the built-in schemas
-            final PsiRecursiveElementVisitor builtInFileVisitor = new PsiRecursiveElementVisitor() {
-                @Override
-                public void visitElement(PsiElement element) {
-                    if (element instanceof PsiNamedElement && word.equals(element.getText())) {
-                        if (!processor.process((PsiNamedElement) element)) {
-                            return; // done processing
-                        }
-                    }
-                    super.visitElement(element);
-                }
-            };
+            // also include the built-in schemas, which are immutable and looked up using their name tables
 
             // spec schema
-            getBuiltInSchema().accept(builtInFileVisitor);
+            if (!processBuiltInSchemaElements(getBuiltInSchema(), word, processor)) {
+                return;
+            }
 
             // relay schema if enabled
             final PsiFile relayModernDirectivesSchema = getRelayModernDirectivesSchema();
             if (schemaScope.contains(relayModernDirectivesSchema.getVirtualFile())) {
-                relayModernDirectivesSchema.accept(builtInFileVisitor);
+                if (!processBuiltInSchemaElements(relayModernDirectivesSchema, word, processor)) {
+                    return;
+                }
             }
 
             // finally, look in the current scratch file
             if (GraphQLFileType.isGraphQLScratchFile(myProject, GraphQLPsiUtil.getVirtualFileFromPsiFile(scopedElement.getContainingFile()))) {
-                scopedElement.getContainingFile().accept(builtInFileVisitor);
+                scopedElement.getContainingFile().accept(new PsiRecursiveElementVisitor() {
+                    @Override
+                    public void visitElement(PsiElement element) {
+                        if (element instanceof PsiNamedElement && word.equals(element.getText())) {
+                            if (!processor.process((PsiNamedElement) element)) {
+                                return; // done processing
+                            }
+                        }
+                        super.visitElement(element);
+                    }
+                });
             }
 
         } catch (IndexNotReadyException e) {
@@ -334,6 +533,43 @@ public class GraphQLPsiSearchHelper {
         }
     }
 
+    private boolean processBuiltInSchemaElements(PsiFile builtInSchema, String word, Processor<PsiNamedElement> processor) {
+        for (PsiNamedElement element : getBuiltInSchemaElementsWithName(builtInSchema, word)) {
+            if (!processor.process(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the named elements in a built-in schema whose text is the specified name, in the order they appear in the schema.
+     * <p>
+     * The built-in schemas are read-only, so their name tables are built once and kept for the lifetime of the project.
+     *
+     * @param builtInSchema the spec schema or the Relay Modern directives schema
+     * @param name          the name to look up
+     */
+    @NotNull
+    public List<PsiNamedElement> getBuiltInSchemaElementsWithName(@NotNull PsiFile builtInSchema, @NotNull String name) {
+        Map<String, List<PsiNamedElement>> nameToElements = builtInSchema.getUserData(BUILT_IN_SCHEMA_NAME_TO_ELEMENTS);
+        if (nameToElements == null) {
+            final Map<String, List<PsiNamedElement>> newNameToElements = Maps.newHashMap();
+            builtInSchema.accept(new PsiRecursiveElementVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    if (element instanceof PsiNamedElement) {
+                        newNameToElements.computeIfAbsent(element.getText(), text -> Lists.newArrayListWithExpectedSize(1)).add((PsiNamedElement) element);
+                    }
+                    super.visitElement(element);
+                }
+            });
+            nameToElements = Collections.unmodifiableMap(newNameToElements);
+            builtInSchema.putUserData(BUILT_IN_SCHEMA_NAME_TO_ELEMENTS, nameToElements);
+        }
+        return nameToElements.getOrDefault(name, Collections.emptyList());
+    }
+
     /**
      * Gets the built-in Schema that all endpoints support, including the introspection types, fields, directives and default scalars.
      */
@@ -394,6 +630,31 @@ public class GraphQLPsiSearchHelper {
         }
     }
 
+    /**
+     * Process injected GraphQL PsiFiles that contain type system definitions
+     *
+     * @param scopedElement the starting point of the enumeration settings the scopedElement of the processing
+     * @param schemaScope   the search scope to use for limiting the schema definitions
+     * @param consumer      a consumer that will be invoked for each injected GraphQL PsiFile with type system definitions
+     */
+    public void processInjectedTypeSystemDefinitionPsiFiles(PsiElement scopedElement, GlobalSearchScope schemaScope, Consumer<PsiFile> consumer) {
+        if (graphQLInjectionSearchHelper != null) {
+            graphQLInjectionSearchHelper.processInjectedTypeSystemDefinitionPsiFiles(scopedElement, schemaScope, consumer);
+        }
+    }
+
+    /**
+     * Process the files that contain injected GraphQL type system definitions, without loading their PSI
+     *
+     * @param schemaScope the search scope to use for limiting the files
+     * @param processor   a processor that will be invoked for each file with injected type system definitions
+     */
+    public void processFilesWithInjectedTypeSystemDefinitions(GlobalSearchScope schemaScope, Processor<VirtualFile> processor) {
+        if (graphQLInjectionSearchHelper != null) {
+            graphQLInjectionSearchHelper.processFilesWithInjectedTypeSystemDefinitions(schemaScope, processor);
+        }
+    }
+
     /**
      * Process built-in GraphQL PsiFiles that are not the spec schema
      *
@@ -7,6 +7,8 @@
  */
 package com.intellij.lang.jsgraphql.ide.project.graphqlconfig;
 
+import java.util.function.Predicate;
+
 /**
  * Glob Matcher which follows the same semantics as minimatch used by graphql-config
  */
@@ -23,4 +25,15 @@ public interface GraphQLConfigGlobMatcher {
      */
     boolean matches(String filePath, String glob);
 
+    /**
+     * Compiles a glob pattern into a predicate that can be used to match many file paths without looking up the glob each time
+     *
+     * @param glob the glob pattern to match against, e.g. "*.{graphql,jsx}"
+     *
+     * @return a predicate which is true for the file paths that match the glob
+     */
+    default Predicate<String> compile(String glob) {
+        return filePath -> matches(filePath, glob);
+    }
+
 }
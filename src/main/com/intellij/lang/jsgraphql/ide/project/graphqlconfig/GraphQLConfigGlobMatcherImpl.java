@@ -9,22 +9,56 @@ package com.intellij.lang.jsgraphql.ide.project.graphqlconfig;
 
 import com.google.common.collect.Maps;
 import com.intellij.openapi.util.Pair;
+import com.intellij.util.containers.SLRUMap;
 import minimatch.Minimatch;
 import minimatch.Options;
 
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Matcher which uses nashorn-minimatch to achieve same glob semantics as graphql-config.
+ * <p>
+ * Each glob is compiled once into a minimatch pattern, and the match results are kept in a bounded LRU cache which belongs to the project,
+ * such that the memory use doesn't grow with the number of files in the project and is released when the project is closed.
  */
 public class GraphQLConfigGlobMatcherImpl implements GraphQLConfigGlobMatcher {
 
-    private final static Map<Pair<String, String>, Boolean> matches = Maps.newConcurrentMap();
     private final static Options OPTIONS = new Options().setMatchBase(true);
 
+    // the number of recently matched file path and glob pairs to keep, split between the protected and probational queues of the LRU
+    private final static int MATCHES_CACHE_SIZE = 4096;
+
+    private final Map<String, Minimatch> compiledGlobs = Maps.newConcurrentMap();
+    private final SLRUMap<Pair<String, String>, Boolean> matches = new SLRUMap<>(MATCHES_CACHE_SIZE / 2, MATCHES_CACHE_SIZE / 2);
+
     @Override
     public boolean matches(String filePath, String glob) {
-        return matches.computeIfAbsent(Pair.create(filePath, glob), args -> Minimatch.minimatch(args.first, args.second, OPTIONS));
+        final Pair<String, String> key = Pair.create(filePath, glob);
+        synchronized (matches) {
+            final Boolean cachedMatch = matches.get(key);
+            if (cachedMatch != null) {
+                return cachedMatch;
+            }
+        }
+        final boolean match = getCompiledGlob(glob).match(filePath);
+        synchronized (matches) {
+            matches.put(key, match);
+        }
+        return match;
+    }
+
+    @Override
+    public Predicate<String> compile(String glob) {
+        final Minimatch compiledGlob = getCompiledGlob(glob);
+        return compiledGlob::match;
+    }
+
+    /**
+     * Gets the minimatch pattern for a glob, compiling it on first use
+     */
+    Minimatch getCompiledGlob(String glob) {
+        return compiledGlobs.computeIfAbsent(glob, pattern -> new Minimatch(pattern, OPTIONS));
     }
 
 }
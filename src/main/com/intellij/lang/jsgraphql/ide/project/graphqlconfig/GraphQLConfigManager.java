@@ -54,7 +54,9 @@ import com.intellij.openapi.roots.ModuleRootEvent;
 import com.intellij.openapi.roots.ModuleRootListener;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -136,6 +138,9 @@ public class GraphQLConfigManager {
     private final Map<String, GraphQLNamedScope> virtualFilePathToScopes = Maps.newConcurrentMap();
     private final Map<GraphQLNamedScope, JSGraphQLSchemaEndpointConfiguration> scopeToSchemaEndpointLanguageConfiguration = Maps.newConcurrentMap();
 
+    // incremented when the configuration model is rebuilt or the configured scope of a file changes
+    private final SimpleModificationTracker configurationModificationTracker = new SimpleModificationTracker();
+
     private final ReadWriteLock cacheLock = new ReentrantReadWriteLock(true);
     private final Lock writeLock = cacheLock.writeLock();
     private final Lock readLock = cacheLock.readLock();
@@ -471,6 +476,7 @@ public class GraphQLConfigManager {
                         // updated the .graphqlconfig comment in a scratch comment which associates the scratch with a scope
                         // so clear the cached path to scope entry in virtualFilePathToScopes
                         virtualFilePathToScopes.keySet().remove(event.getFile().getVirtualFile().getPath());
+                        configurationModificationTracker.incModificationCount();
                     }
                 }
             }
@@ -655,6 +661,7 @@ public class GraphQLConfigManager {
             this.configDataToEntryFiles.clear();
             this.configDataToPackageset.clear();
             this.scopeToSchemaEndpointLanguageConfiguration.clear();
+            this.configurationModificationTracker.incModificationCount();
             // finally mark as initialized
             initialized = true;
         } finally {
@@ -730,6 +737,14 @@ public class GraphQLConfigManager {
         }
     }
 
+    /**
+     * Gets a tracker that changes when the configuration model is rebuilt or the configured scope of a file changes,
+     * i.e. whenever {@link #getSchemaScope(VirtualFile)} can return a different scope for a file
+     */
+    public ModificationTracker getConfigurationModificationTracker() {
+        return configurationModificationTracker;
+    }
+
     @Nullable
     public GraphQLNamedScope getSchemaScope(VirtualFile virtualFile) {
         VirtualFile virtualFileWithPath = GraphQLPsiUtil.getVirtualFile(virtualFile);
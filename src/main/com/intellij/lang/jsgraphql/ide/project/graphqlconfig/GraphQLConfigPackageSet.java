@@ -7,6 +7,8 @@
  */
 package com.intellij.lang.jsgraphql.ide.project.graphqlconfig;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.intellij.ide.scratch.ScratchUtil;
 import com.intellij.json.JsonFileType;
@@ -22,6 +24,7 @@ import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -29,12 +32,17 @@ import java.util.stream.Collectors;
  */
 public class GraphQLConfigPackageSet implements PackageSet {
 
+    // characters which start glob magic in minimatch, including negation and extglob patterns
+    private static final String GLOB_MAGIC_CHARS = "*?[]{}()!+@\\";
+
     private final VirtualFile configBaseDir;
     private GraphQLFile configEntryFile;
     private final GraphQLResolvedConfigData configData;
     private GraphQLConfigGlobMatcher globMatcher;
     private final String configBaseDirPath;
     private final boolean hasIncludes;
+    private final CompiledGlobs includes;
+    private final CompiledGlobs excludes;
 
     private String schemaFilePath;
 
@@ -54,6 +62,8 @@ public class GraphQLConfigPackageSet implements PackageSet {
         configData.includes = normalizeGlobs(configData.includes);
 
         hasIncludes = configData.includes != null && !configData.includes.isEmpty();
+        includes = CompiledGlobs.compile(configData.includes, globMatcher);
+        excludes = CompiledGlobs.compile(configData.excludes, globMatcher);
     }
 
     private void updateSchemaFilePath() {
@@ -128,34 +138,110 @@ public class GraphQLConfigPackageSet implements PackageSet {
             }
         }
 
-        return includesFilePath.computeIfAbsent(inclusionPath, filePath -> {
-            if (filePath.equals(schemaFilePath)) {
-                // fast-path for always including the schema file if present
-                return true;
+        final Boolean cachedIncludes = includesFilePath.get(inclusionPath);
+        if (cachedIncludes != null) {
+            return cachedIncludes;
+        }
+        final boolean includesPath = includesFilePath(inclusionPath);
+        includesFilePath.put(inclusionPath, includesPath);
+        return includesPath;
+    }
+
+    private boolean includesFilePath(String filePath) {
+        if (filePath.equals(schemaFilePath)) {
+            // fast-path for always including the schema file if present
+            return true;
+        }
+        final String relativePath;
+        if (filePath.startsWith(configBaseDirPath)) {
+            relativePath = filePath.substring(configBaseDirPath.length());
+        } else {
+            // the file is outside the config base dir, so it's not included
+            return false;
+        }
+        return (!hasIncludes || includes.matches(relativePath)) && !excludes.matches(relativePath);
+    }
+
+    /**
+     * Gets the directories at the start of a glob which don't contain any glob magic, e.g. "src/app/" for "src/app/*.graphql",
+     * or null if the glob starts with magic or doesn't contain a directory
+     */
+    private static String getLiteralDirectoryPrefix(String glob) {
+        int prefixLength = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (GLOB_MAGIC_CHARS.indexOf(c) != -1) {
+                break;
             }
-            final String relativePath;
-            if (filePath.startsWith(configBaseDirPath)) {
-                relativePath = StringUtils.removeStart(filePath, configBaseDirPath);
-            } else {
-                // the file is outside the config base dir, so it's not included
-                return false;
+            if (c == '/') {
+                prefixLength = i + 1;
             }
-            return (!hasIncludes || matchesGlobs(relativePath, this.configData.includes)) && !matchesGlobs(relativePath, this.configData.excludes);
-        });
+        }
+        return prefixLength > 0 ? glob.substring(0, prefixLength) : null;
     }
 
     /**
-     * Based on graphl-config: https://github.com/kamilkisiela/graphql-config/blob/b6785a7f0c1b84010cd6e9b94797796254d527b9/src/utils.ts#L52
+     * Globs compiled into predicates, along with the literal directory prefix of each glob.
+     * A relative path which doesn't start with the literal prefix of a glob can't match it, so the glob is skipped without being evaluated.
      */
-    private boolean matchesGlobs(String filePath, List<String> globs) {
-        return Optional.ofNullable(globs).orElse(Collections.emptyList()).stream().anyMatch(glob -> {
-            VirtualFile relativePath = configBaseDir.findFileByRelativePath(glob);
-            if (relativePath != null) {
-                // glob is a directory, so include the files in it
-                glob = glob + "/**";
+    @VisibleForTesting
+    static class CompiledGlobs {
+
+        static final CompiledGlobs EMPTY = new CompiledGlobs(new String[0], Collections.emptyList());
+
+        private final String[] literalPrefixes;
+        private final List<Predicate<String>> predicates;
+
+        CompiledGlobs(String[] literalPrefixes, List<Predicate<String>> predicates) {
+            this.literalPrefixes = literalPrefixes;
+            this.predicates = predicates;
+        }
+
+        /**
+         * Compiles globs once, such that files can be matched without looking up the globs in the VFS.
+         * A glob which names a directory includes the files in it, so each glob is also compiled with "/**" appended.
+         * This doesn't depend on whether the directory exists yet, such that directories which are created later are included.
+         * Based on graphl-config: https://github.com/kamilkisiela/graphql-config/blob/b6785a7f0c1b84010cd6e9b94797796254d527b9/src/utils.ts#L52
+         */
+        static CompiledGlobs compile(List<String> globs, GraphQLConfigGlobMatcher globMatcher) {
+            if (globs == null || globs.isEmpty()) {
+                return EMPTY;
             }
-            return globMatcher.matches(filePath, glob);
-        });
+            final List<String> literalPrefixes = Lists.newArrayListWithCapacity(globs.size() * 2);
+            final List<Predicate<String>> predicates = Lists.newArrayListWithCapacity(globs.size() * 2);
+            for (String glob : globs) {
+                if (glob.endsWith("**")) {
+                    literalPrefixes.add(getLiteralDirectoryPrefix(glob));
+                    predicates.add(globMatcher.compile(glob));
+                    continue;
+                }
+                final String directoryGlob = StringUtils.removeEnd(glob, "/") + "/**";
+                if (glob.startsWith("!")) {
+                    // a negated glob has to exclude both the directory and the files in it
+                    literalPrefixes.add(null);
+                    predicates.add(globMatcher.compile(glob).and(globMatcher.compile(directoryGlob)));
+                } else {
+                    literalPrefixes.add(getLiteralDirectoryPrefix(glob));
+                    predicates.add(globMatcher.compile(glob));
+                    literalPrefixes.add(getLiteralDirectoryPrefix(directoryGlob));
+                    predicates.add(globMatcher.compile(directoryGlob));
+                }
+            }
+            return new CompiledGlobs(literalPrefixes.toArray(new String[0]), predicates);
+        }
+
+        boolean matches(String relativePath) {
+            for (int i = 0; i < literalPrefixes.length; i++) {
+                final String literalPrefix = literalPrefixes[i];
+                if (literalPrefix != null && !relativePath.startsWith(literalPrefix)) {
+                    continue;
+                }
+                if (predicates.get(i).test(relativePath)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     @NotNull
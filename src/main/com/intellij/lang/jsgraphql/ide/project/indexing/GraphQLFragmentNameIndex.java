@@ -7,95 +7,157 @@
  */
 package com.intellij.lang.jsgraphql.ide.project.indexing;
 
-import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLInjectionSearchHelper;
 import com.intellij.lang.jsgraphql.ide.references.GraphQLFindUsagesUtil;
-import com.intellij.lang.jsgraphql.psi.GraphQLDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeCondition;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.fileTypes.FileType;
-import com.intellij.openapi.util.Ref;
-import com.intellij.psi.*;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.util.indexing.*;
-import com.intellij.util.io.BooleanDataDescriptor;
 import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
 import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
 import com.intellij.util.io.KeyDescriptor;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
- * Index for processing files that contain one or more GraphQL fragment definitions
+ * Indexes the names of GraphQL fragment definitions in GraphQL files and GraphQL injections.
+ * The value for each name holds the type conditions of the fragments along with the offsets of their names, such that fragments can be
+ * found and filtered by type condition without visiting the PSI trees of the files that define them.
  */
-public class GraphQLFragmentNameIndex extends FileBasedIndexExtension<String, Boolean> {
-
-    public static final ID<String, Boolean> NAME = ID.create("GraphQLFragmentNameIndex");
-
-    public static final String HAS_FRAGMENTS = "fragments";
+public class GraphQLFragmentNameIndex extends FileBasedIndexExtension<String, GraphQLFragmentNameIndex.FragmentLocations> {
 
+    public static final ID<String, FragmentLocations> NAME = ID.create("GraphQLFragmentNameIndex");
 
     private final GraphQLInjectionSearchHelper graphQLInjectionSearchHelper;
 
     private final Set<FileType> includedFileTypes;
 
-    private final DataIndexer<String, Boolean, FileContent> myDataIndexer;
+    private final DataIndexer<String, FragmentLocations, FileContent> myDataIndexer;
+
+    /**
+     * The type conditions and name offsets of the fragment definitions with a specific name in a single file.
+     * For GraphQL injections the offsets are in the host file.
+     */
+    public static class FragmentLocations {
+
+        private final List<Pair<String, Integer>> definitions;
+
+        FragmentLocations() {
+            this(Lists.newArrayListWithExpectedSize(1));
+        }
+
+        private FragmentLocations(List<Pair<String, Integer>> definitions) {
+            this.definitions = definitions;
+        }
+
+        void add(String typeCondition, int offset) {
+            definitions.add(Pair.create(typeCondition, offset));
+        }
+
+        /**
+         * Gets the type condition names of the fragments, with an empty name for fragments that don't declare a type condition
+         */
+        public List<String> getTypeConditions() {
+            final List<String> typeConditions = Lists.newArrayListWithCapacity(definitions.size());
+            for (Pair<String, Integer> definition : definitions) {
+                typeConditions.add(definition.first);
+            }
+            return typeConditions;
+        }
+
+        /**
+         * Gets the offsets of the fragment name identifiers
+         */
+        public List<Integer> getOffsets() {
+            final List<Integer> offsets = Lists.newArrayListWithCapacity(definitions.size());
+            for (Pair<String, Integer> definition : definitions) {
+                offsets.add(definition.second);
+            }
+            return offsets;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FragmentLocations that = (FragmentLocations) o;
+            return definitions.equals(that.definitions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(definitions);
+        }
+    }
 
     public GraphQLFragmentNameIndex() {
         myDataIndexer = inputData -> {
 
-            final Ref<Boolean> hasFragments = Ref.create(false);
+            final PsiFile psiFile = inputData.getPsiFile();
+            if (!(psiFile instanceof GraphQLFile)) {
+                // GraphQL injections are scanned using the lexer, sharing the pass with the identifier index
+                return GraphQLInjectedIndexData.getInstance(inputData, graphQLInjectionSearchHelper).getFragments();
+            }
 
-            final Ref<PsiRecursiveElementVisitor> identifierVisitor = Ref.create();
-            identifierVisitor.set(new PsiRecursiveElementVisitor() {
-                @Override
-                public void visitElement(PsiElement element) {
-                    if (hasFragments.get()) {
-                        // done
-                        return;
-                    }
-                    if (element instanceof GraphQLDefinition) {
-                        if (element instanceof GraphQLFragmentDefinition) {
-                            hasFragments.set(true);
-                        }
-                        return; // no need to visit deeper than definitions since fragments are top level
-                    } else if (element instanceof PsiLanguageInjectionHost && graphQLInjectionSearchHelper != null) {
-                        if (graphQLInjectionSearchHelper.isJSGraphQLLanguageInjectionTarget(element)) {
-                            final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(element.getProject());
-                            final String graphqlBuffer = StringUtils.strip(element.getText(), "` \t\n");
-                            final PsiFile graphqlInjectedPsiFile = psiFileFactory.createFileFromText("", GraphQLFileType.INSTANCE, graphqlBuffer, 0, false, false);
-                            graphqlInjectedPsiFile.accept(identifierVisitor.get());
-                            return;
-                        }
+            final Map<String, FragmentLocations> fragments = Maps.newHashMap();
+
+            for (PsiElement child : psiFile.getChildren()) {
+                // fragments are top level definitions
+                if (child instanceof GraphQLFragmentDefinition) {
+                    final GraphQLFragmentDefinition fragmentDefinition = (GraphQLFragmentDefinition) child;
+                    final GraphQLIdentifier nameIdentifier = fragmentDefinition.getNameIdentifier();
+                    if (nameIdentifier != null) {
+                        final FragmentLocations locations = fragments.computeIfAbsent(nameIdentifier.getText(), name -> new FragmentLocations());
+                        locations.add(getTypeConditionName(fragmentDefinition), nameIdentifier.getTextOffset());
                     }
-                    super.visitElement(element);
                 }
-            });
-
-            inputData.getPsiFile().accept(identifierVisitor.get());
-
-            if (hasFragments.get()) {
-                return Collections.singletonMap(HAS_FRAGMENTS, true);
-            } else {
-                return Collections.emptyMap();
             }
 
+            return fragments;
+
         };
         includedFileTypes = GraphQLFindUsagesUtil.getService().getIncludedFileTypes();
         graphQLInjectionSearchHelper = ServiceManager.getService(GraphQLInjectionSearchHelper.class);
     }
 
+    /**
+     * Gets the name of the type that a fragment applies to, or an empty string if the fragment doesn't declare a type condition
+     */
+    public static String getTypeConditionName(GraphQLFragmentDefinition fragmentDefinition) {
+        final GraphQLTypeCondition typeCondition = fragmentDefinition.getTypeCondition();
+        if (typeCondition != null && typeCondition.getTypeName() != null) {
+            return StringUtils.defaultString(typeCondition.getTypeName().getName());
+        }
+        return "";
+    }
+
     @NotNull
     @Override
-    public ID<String, Boolean> getName() {
+    public ID<String, FragmentLocations> getName() {
         return NAME;
     }
 
     @NotNull
     @Override
-    public DataIndexer<String, Boolean, FileContent> getIndexer() {
+    public DataIndexer<String, FragmentLocations, FileContent> getIndexer() {
         return myDataIndexer;
     }
 
@@ -107,13 +169,33 @@ public class GraphQLFragmentNameIndex extends FileBasedIndexExtension<String, Bo
 
     @NotNull
     @Override
-    public DataExternalizer<Boolean> getValueExternalizer() {
-        return BooleanDataDescriptor.INSTANCE;
+    public DataExternalizer<FragmentLocations> getValueExternalizer() {
+        return new DataExternalizer<FragmentLocations>() {
+            @Override
+            public void save(@NotNull DataOutput out, FragmentLocations value) throws IOException {
+                DataInputOutputUtil.writeINT(out, value.definitions.size());
+                for (Pair<String, Integer> definition : value.definitions) {
+                    IOUtil.writeUTF(out, definition.first);
+                    DataInputOutputUtil.writeINT(out, definition.second);
+                }
+            }
+
+            @Override
+            public FragmentLocations read(@NotNull DataInput in) throws IOException {
+                final int size = DataInputOutputUtil.readINT(in);
+                final List<Pair<String, Integer>> definitions = Lists.newArrayListWithCapacity(size);
+                for (int i = 0; i < size; i++) {
+                    final String typeCondition = IOUtil.readUTF(in);
+                    definitions.add(Pair.create(typeCondition, DataInputOutputUtil.readINT(in)));
+                }
+                return new FragmentLocations(definitions);
+            }
+        };
     }
 
     @Override
     public int getVersion() {
-        return 1;
+        return 3;
     }
 
     @NotNull
@@ -7,135 +7,212 @@
  */
 package com.intellij.lang.jsgraphql.ide.project.indexing;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.intellij.json.psi.*;
-import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.json.JsonFileType;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLInjectionSearchHelper;
 import com.intellij.lang.jsgraphql.ide.references.GraphQLFindUsagesUtil;
-import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
+import com.intellij.lang.jsgraphql.psi.*;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.fileTypes.FileType;
-import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.DataExternalizer;
-import com.intellij.util.io.EnumDataDescriptor;
+import com.intellij.util.io.DataInputOutputUtil;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.Set;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
 
 /**
  * Indexes GraphQL identifiers in GraphQL files, GraphQL injections, and JSON GraphQL introspection query result files.
+ * The value for each identifier holds the kinds of elements that use the name, along with the offsets of the definitions that declare it,
+ * such that definitions can be located without visiting the entire PSI tree of the file.
  */
-public class GraphQLIdentifierIndex extends FileBasedIndexExtension<String, GraphQLIdentifierIndex.IdentifierKind> {
+public class GraphQLIdentifierIndex extends FileBasedIndexExtension<String, GraphQLIdentifierIndex.IdentifierLocations> {
 
-    public static final ID<String, IdentifierKind> NAME = ID.create("GraphQLIdentifierIndex");
+    public static final ID<String, IdentifierLocations> NAME = ID.create("GraphQLIdentifierIndex");
 
     private final GraphQLInjectionSearchHelper graphQLInjectionSearchHelper;
 
     private final Set<FileType> includedFileTypes;
 
-    private final DataIndexer<String, IdentifierKind, FileContent> myDataIndexer;
+    private final DataIndexer<String, IdentifierLocations, FileContent> myDataIndexer;
 
     public enum IdentifierKind {
 
-        IDENTIFIER_NAME,
-        // FIELD_NAME,
-        // FIELD_ALIAS_NAME,
-        // FIELD_DEFINITION_NAME,
-        // TYPE_NAME,
-        // TYPE_DEFINITION_NAME,
-        // FRAGMENT_SPREAD_NAME,
-        // FRAGMENT_DEFINITION_NAME,
-        // ARGUMENT_NAME,
-        // ENUM_VALUE_NAME,
-        // OBJECT_FIELD_NAME,
-        // DIRECTIVE_NAME,
-        // OPERATION_DEFINITION_NAME
+        TYPE_DEFINITION,
+        FIELD_DEFINITION,
+        INPUT_VALUE_DEFINITION,
+        FRAGMENT_DEFINITION,
+        DIRECTIVE_DEFINITION,
+        ENUM_VALUE_DEFINITION,
+        USAGE;
 
+        public boolean isDefinition() {
+            return this != USAGE;
+        }
+
+        /**
+         * Gets the kind of identifier based on the element that it names
+         */
+        public static IdentifierKind of(GraphQLIdentifier identifier) {
+            final PsiElement parent = identifier.getParent();
+            if (parent instanceof GraphQLTypeNameDefinition) {
+                return TYPE_DEFINITION;
+            } else if (parent instanceof GraphQLFieldDefinition) {
+                return FIELD_DEFINITION;
+            } else if (parent instanceof GraphQLInputValueDefinition) {
+                return INPUT_VALUE_DEFINITION;
+            } else if (parent instanceof GraphQLFragmentDefinition) {
+                return FRAGMENT_DEFINITION;
+            } else if (parent instanceof GraphQLDirectiveDefinition) {
+                return DIRECTIVE_DEFINITION;
+            } else if (parent instanceof GraphQLEnumValue && parent.getParent() instanceof GraphQLEnumValueDefinition) {
+                return ENUM_VALUE_DEFINITION;
+            }
+            return USAGE;
+        }
+    }
+
+    /**
+     * The kinds and definition offsets of an identifier in a single file.
+     * For GraphQL injections the offsets are in the host file.
+     */
+    public static class IdentifierLocations {
+
+        private final EnumSet<IdentifierKind> kinds;
+        private final List<Pair<IdentifierKind, Integer>> definitions;
+        private boolean located;
+
+        IdentifierLocations() {
+            this(EnumSet.noneOf(IdentifierKind.class), Lists.newArrayList(), true);
+        }
+
+        private IdentifierLocations(EnumSet<IdentifierKind> kinds, List<Pair<IdentifierKind, Integer>> definitions, boolean located) {
+            this.kinds = kinds;
+            this.definitions = definitions;
+            this.located = located;
+        }
+
+        void add(IdentifierKind kind, int offset) {
+            kinds.add(kind);
+            if (kind.isDefinition()) {
+                definitions.add(Pair.create(kind, offset));
+            }
+        }
+
+        void markNotLocated() {
+            located = false;
+        }
+
+        /**
+         * Gets whether the identifier is used as one of the specified kinds
+         */
+        public boolean hasAnyKind(Set<IdentifierKind> identifierKinds) {
+            for (IdentifierKind identifierKind : identifierKinds) {
+                if (kinds.contains(identifierKind)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets whether the kinds and offsets of all occurrences are known.
+         * Identifiers in JSON introspection files are only known by name, so their PSI must be visited to locate them.
+         */
+        public boolean isLocated() {
+            return located;
+        }
+
+        /**
+         * Gets the offsets of definitions with one of the specified kinds
+         */
+        public List<Integer> getDefinitionOffsets(Set<IdentifierKind> definitionKinds) {
+            final List<Integer> offsets = Lists.newArrayList();
+            for (Pair<IdentifierKind, Integer> definition : definitions) {
+                if (definitionKinds.contains(definition.first)) {
+                    offsets.add(definition.second);
+                }
+            }
+            return offsets;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            IdentifierLocations that = (IdentifierLocations) o;
+            return located == that.located && kinds.equals(that.kinds) && definitions.equals(that.definitions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kinds, definitions, located);
+        }
     }
 
     public GraphQLIdentifierIndex() {
         myDataIndexer = inputData -> {
 
-            final HashMap<String, IdentifierKind> identifiers = Maps.newHashMap();
+            if (inputData.getFileType() instanceof JsonFileType) {
+                // introspection results can be very large, so they're scanned using the lexer instead of building their JSON PSI
+                return getIntrospectionJsonIdentifiers(inputData.getContentAsText());
+            }
 
-            final Ref<PsiRecursiveElementVisitor> identifierVisitor = Ref.create();
-            identifierVisitor.set(new PsiRecursiveElementVisitor() {
+            final PsiFile psiFile = inputData.getPsiFile();
+            if (!(psiFile instanceof GraphQLFile)) {
+                // GraphQL injections are scanned using the lexer, sharing the pass with the fragment index
+                return GraphQLInjectedIndexData.getInstance(inputData, graphQLInjectionSearchHelper).getIdentifiers();
+            }
+
+            final HashMap<String, IdentifierLocations> identifiers = Maps.newHashMap();
+
+            psiFile.accept(new PsiRecursiveElementVisitor() {
                 @Override
                 public void visitElement(PsiElement element) {
                     if (element instanceof GraphQLIdentifier) {
-                        identifiers.put(element.getText(), IdentifierKind.IDENTIFIER_NAME);
+                        final IdentifierLocations locations = identifiers.computeIfAbsent(element.getText(), name -> new IdentifierLocations());
+                        locations.add(IdentifierKind.of((GraphQLIdentifier) element), element.getTextOffset());
                         return; // no need to visit deeper
-                    } else if (element instanceof JsonElement) {
-                        if (element instanceof JsonFile) {
-                            if (!isIntrospectionJsonFile((JsonFile) element)) {
-                                // no need to visit this JSON file as it's not an introspection file
-                                return;
-                            }
-                        }
-                        if (element instanceof JsonProperty) {
-                            final JsonProperty jsonProperty = (JsonProperty) element;
-                            // GraphQL identifiers in an introspection result are defined using "name" properties:
-                            // https://graphql.github.io/graphql-spec/June2018/#sec-Schema-Introspection
-                            if ("name".equals(jsonProperty.getName())) {
-                                if (jsonProperty.getValue() instanceof JsonStringLiteral) {
-                                    identifiers.put(((JsonStringLiteral) jsonProperty.getValue()).getValue(), IdentifierKind.IDENTIFIER_NAME);
-                                }
-                            }
-                        }
-                    } else if (element instanceof PsiLanguageInjectionHost && graphQLInjectionSearchHelper != null) {
-                        if (graphQLInjectionSearchHelper.isJSGraphQLLanguageInjectionTarget(element)) {
-                            final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(element.getProject());
-                            final String graphqlBuffer = StringUtils.strip(element.getText(), "` \t\n");
-                            final PsiFile graphqlInjectedPsiFile = psiFileFactory.createFileFromText("", GraphQLFileType.INSTANCE, graphqlBuffer, 0, false, false);
-                            graphqlInjectedPsiFile.accept(identifierVisitor.get());
-                            return;
-                        }
                     }
                     super.visitElement(element);
                 }
             });
 
-            inputData.getPsiFile().accept(identifierVisitor.get());
-
             return identifiers;
         };
         includedFileTypes = GraphQLFindUsagesUtil.getService().getIncludedFileTypes();
         graphQLInjectionSearchHelper = ServiceManager.getService(GraphQLInjectionSearchHelper.class);
     }
 
-    private boolean isIntrospectionJsonFile(JsonFile jsonFile) {
-        for (PsiElement child : jsonFile.getChildren()) {
-            if (child instanceof JsonObject) {
-                JsonProperty dataProperty = ((JsonObject) child).findProperty("data");
-                if (dataProperty != null) {
-                    if (dataProperty.getValue() instanceof JsonObject) {
-                        return ((JsonObject) dataProperty.getValue()).findProperty("__schema") != null;
-                    }
-                }
-                final JsonProperty schemaProperty = ((JsonObject) child).findProperty("__schema");
-                if(schemaProperty != null) {
-                    return true;
-                }
-            }
+    private static Map<String, IdentifierLocations> getIntrospectionJsonIdentifiers(CharSequence json) {
+        if (!GraphQLIntrospectionJsonScanner.isIntrospectionJson(json)) {
+            return Collections.emptyMap();
         }
-        return false;
+        final HashMap<String, IdentifierLocations> identifiers = Maps.newHashMap();
+        GraphQLIntrospectionJsonScanner.processNames(json, name -> {
+            // the SDL is only derived from the JSON on demand, so the kinds and definitions are unknown
+            identifiers.computeIfAbsent(name, n -> new IdentifierLocations()).markNotLocated();
+        });
+        return identifiers;
     }
 
     @NotNull
     @Override
-    public ID<String, IdentifierKind> getName() {
+    public ID<String, IdentifierLocations> getName() {
         return NAME;
     }
 
     @NotNull
     @Override
-    public DataIndexer<String, IdentifierKind, FileContent> getIndexer() {
+    public DataIndexer<String, IdentifierLocations, FileContent> getIndexer() {
         return myDataIndexer;
     }
 
@@ -147,13 +224,48 @@ public class GraphQLIdentifierIndex extends FileBasedIndexExtension<String, Grap
 
     @NotNull
     @Override
-    public DataExternalizer<IdentifierKind> getValueExternalizer() {
-        return new EnumDataDescriptor<>(IdentifierKind.class);
+    public DataExternalizer<IdentifierLocations> getValueExternalizer() {
+        return new DataExternalizer<IdentifierLocations>() {
+            @Override
+            public void save(@NotNull DataOutput out, IdentifierLocations value) throws IOException {
+                int kinds = 0;
+                for (IdentifierKind kind : value.kinds) {
+                    kinds |= 1 << kind.ordinal();
+                }
+                DataInputOutputUtil.writeINT(out, kinds);
+                out.writeBoolean(value.located);
+                DataInputOutputUtil.writeINT(out, value.definitions.size());
+                for (Pair<IdentifierKind, Integer> definition : value.definitions) {
+                    DataInputOutputUtil.writeINT(out, definition.first.ordinal());
+                    DataInputOutputUtil.writeINT(out, definition.second);
+                }
+            }
+
+            @Override
+            public IdentifierLocations read(@NotNull DataInput in) throws IOException {
+                final IdentifierKind[] identifierKinds = IdentifierKind.values();
+                final int kindsMask = DataInputOutputUtil.readINT(in);
+                final EnumSet<IdentifierKind> kinds = EnumSet.noneOf(IdentifierKind.class);
+                for (IdentifierKind kind : identifierKinds) {
+                    if ((kindsMask & (1 << kind.ordinal())) != 0) {
+                        kinds.add(kind);
+                    }
+                }
+                final boolean located = in.readBoolean();
+                final int size = DataInputOutputUtil.readINT(in);
+                final List<Pair<IdentifierKind, Integer>> definitions = Lists.newArrayListWithCapacity(size);
+                for (int i = 0; i < size; i++) {
+                    final IdentifierKind kind = identifierKinds[DataInputOutputUtil.readINT(in)];
+                    definitions.add(Pair.create(kind, DataInputOutputUtil.readINT(in)));
+                }
+                return new IdentifierLocations(kinds, definitions, located);
+            }
+        };
     }
 
     @Override
     public int getVersion() {
-        return 2;
+        return 5;
     }
 
     @NotNull
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.project.indexing;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.json.JsonFileType;
+import com.intellij.lang.jsgraphql.GraphQLLexerAdapter;
+import com.intellij.lang.jsgraphql.ide.project.GraphQLInjectionSearchHelper;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLFragmentNameIndex.FragmentLocations;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLIdentifierIndex.IdentifierKind;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLIdentifierIndex.IdentifierLocations;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiLanguageInjectionHost;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.util.indexing.FileContent;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static com.intellij.lang.jsgraphql.psi.GraphQLElementTypes.*;
+
+/**
+ * The GraphQL identifiers and fragment definitions of the GraphQL injections in a file, e.g. GraphQL tagged templates in JavaScript.
+ * <p>
+ * Injections are scanned using the GraphQL lexer instead of being parsed into PSI, and the kind of each identifier is derived from the
+ * tokens around it such that the result matches indexing the PSI of the injection. The data is stored on the indexed file content, so
+ * {@link GraphQLIdentifierIndex} and {@link GraphQLFragmentNameIndex} share a single pass over the injections of a file.
+ */
+class GraphQLInjectedIndexData {
+
+    private static final Key<GraphQLInjectedIndexData> INJECTED_INDEX_DATA = Key.create("JSGraphQL.injected.index.data");
+
+    private static final TokenSet DEFINITION_KEYWORDS = TokenSet.create(
+            QUERY_KEYWORD, MUTATION_KEYWORD, SUBSCRIPTION_KEYWORD, FRAGMENT_KEYWORD, SCHEMA_KEYWORD, TYPE_KEYWORD, INTERFACE_KEYWORD,
+            INPUT_KEYWORD, ENUM_KEYWORD, UNION_KEYWORD, SCALAR_KEYWORD, DIRECTIVE_KEYWORD, EXTEND_KEYWORD
+    );
+
+    // the tokens that the identifier rule of the grammar accepts
+    private static final TokenSet IDENTIFIER_TOKENS = TokenSet.orSet(DEFINITION_KEYWORDS, TokenSet.create(NAME, IMPLEMENTS_KEYWORD, ON_KEYWORD));
+
+    private static final TokenSet IGNORED_TOKENS = TokenSet.create(TokenType.WHITE_SPACE, COMMENT, OPEN_QUOTE, REGULAR_STRING_PART, CLOSING_QUOTE);
+
+    private final Map<String, IdentifierLocations> identifiers = Maps.newHashMap();
+    private final Map<String, FragmentLocations> fragments = Maps.newHashMap();
+
+    /**
+     * Gets the GraphQL identifiers and fragment definitions of the injections in an indexed file, scanning the injections on first use
+     */
+    @NotNull
+    static GraphQLInjectedIndexData getInstance(@NotNull FileContent inputData, @Nullable GraphQLInjectionSearchHelper graphQLInjectionSearchHelper) {
+        GraphQLInjectedIndexData indexData = inputData.getUserData(INJECTED_INDEX_DATA);
+        if (indexData == null) {
+            final GraphQLInjectedIndexData newIndexData = new GraphQLInjectedIndexData();
+            // JSON files can't contain GraphQL injections, and large introspection results shouldn't be parsed into PSI
+            if (graphQLInjectionSearchHelper != null && !(inputData.getFileType() instanceof JsonFileType)) {
+                inputData.getPsiFile().accept(new PsiRecursiveElementVisitor() {
+                    @Override
+                    public void visitElement(PsiElement element) {
+                        if (element instanceof PsiLanguageInjectionHost && graphQLInjectionSearchHelper.isJSGraphQLLanguageInjectionTarget(element)) {
+                            final String hostText = element.getText();
+                            final String graphqlBuffer = StringUtils.strip(hostText, "` \t\n");
+                            final int strippedPrefixLength = hostText.length() - StringUtils.stripStart(hostText, "` \t\n").length();
+                            newIndexData.scan(graphqlBuffer, element.getTextRange().getStartOffset() + strippedPrefixLength);
+                            return;
+                        }
+                        super.visitElement(element);
+                    }
+                });
+            }
+            indexData = newIndexData;
+            inputData.putUserData(INJECTED_INDEX_DATA, indexData);
+        }
+        return indexData;
+    }
+
+    /**
+     * Gets the identifiers of the injections by name, with offsets in the host file
+     */
+    @NotNull
+    Map<String, IdentifierLocations> getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * Gets the fragment definitions of the injections by name, with offsets in the host file
+     */
+    @NotNull
+    Map<String, FragmentLocations> getFragments() {
+        return fragments;
+    }
+
+    private enum DefinitionKind {
+        NONE, OPERATION, FRAGMENT, SCHEMA, OBJECT_OR_INTERFACE, INPUT, ENUM, UNION, SCALAR, DIRECTIVE
+    }
+
+    private enum Scope {
+        FIELDS, INPUT_FIELDS, ENUM_VALUES, OPERATION_TYPES, ARGUMENTS_DEFINITION, LIST, OTHER
+    }
+
+    private static class Token {
+
+        final IElementType type;
+        final int start;
+        final int end;
+
+        Token(IElementType type, int start, int end) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Scans GraphQL text for identifiers and fragment definitions
+     *
+     * @param text         the GraphQL text to scan
+     * @param offsetInFile the offset of the text in the indexed file
+     */
+    void scan(@NotNull CharSequence text, int offsetInFile) {
+        final List<Token> tokens = tokenize(text);
+
+        DefinitionKind kind = DefinitionKind.NONE;
+        boolean extension = false;
+        boolean nameExpected = false;
+        boolean bodyOpened = false;
+        boolean directiveNameExpected = false;
+        boolean inDirectiveLocations = false;
+        boolean typeConditionExpected = false;
+        String fragmentName = null;
+        int fragmentOffset = 0;
+        String fragmentTypeCondition = "";
+        int lastDefinitionNameIndex = -1;
+        final Deque<Scope> scopes = new ArrayDeque<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            final Token token = tokens.get(i);
+            final IElementType type = token.type;
+            final IElementType prevType = i > 0 ? tokens.get(i - 1).type : null;
+            final IElementType nextType = i + 1 < tokens.size() ? tokens.get(i + 1).type : null;
+
+            if (type == BRACE_R || type == PAREN_R || type == BRACKET_R) {
+                if (!scopes.isEmpty()) {
+                    scopes.pop();
+                }
+                continue;
+            }
+            if (type == PAREN_L) {
+                scopes.push(lastDefinitionNameIndex == i - 1 ? Scope.ARGUMENTS_DEFINITION : Scope.OTHER);
+                nameExpected = false;
+                continue;
+            }
+            if (type == BRACKET_L) {
+                scopes.push(Scope.LIST);
+                continue;
+            }
+
+            if (!scopes.isEmpty()) {
+                // inside a selection set, type body, arguments or value
+                if (type == BRACE_L) {
+                    scopes.push(Scope.OTHER);
+                    continue;
+                }
+                if (!IDENTIFIER_TOKENS.contains(type) || (type == ON_KEYWORD && prevType == SPREAD) || isLiteralValue(text, token, prevType, scopes.peek())) {
+                    continue;
+                }
+                if (prevType == AT) {
+                    // directive
+                    addIdentifier(text, token, offsetInFile, IdentifierKind.USAGE);
+                    continue;
+                }
+                switch (scopes.peek()) {
+                    case FIELDS:
+                        if (nextType == COLON || nextType == PAREN_L) {
+                            addIdentifier(text, token, offsetInFile, IdentifierKind.FIELD_DEFINITION);
+                            lastDefinitionNameIndex = i;
+                        } else {
+                            addIdentifier(text, token, offsetInFile, IdentifierKind.USAGE);
+                        }
+                        break;
+                    case INPUT_FIELDS:
+                    case ARGUMENTS_DEFINITION:
+                        addIdentifier(text, token, offsetInFile, nextType == COLON ? IdentifierKind.INPUT_VALUE_DEFINITION : IdentifierKind.USAGE);
+                        break;
+                    case ENUM_VALUES:
+                        addIdentifier(text, token, offsetInFile, IdentifierKind.ENUM_VALUE_DEFINITION);
+                        break;
+                    case OPERATION_TYPES:
+                        if (nextType != COLON) {
+                            // the operation type before the colon isn't an identifier
+                            addIdentifier(text, token, offsetInFile, IdentifierKind.USAGE);
+                        }
+                        break;
+                    default:
+                        addIdentifier(text, token, offsetInFile, IdentifierKind.USAGE);
+                }
+                continue;
+            }
+
+            // top level of the document
+            if (type == BRACE_L) {
+                final Scope bodyScope = bodyOpened ? null : getBodyScope(kind);
+                if (bodyScope != null) {
+                    scopes.push(bodyScope);
+                } else {
+                    // anonymous query
+                    addFragment(fragmentName, fragmentTypeCondition, fragmentOffset);
+                    fragmentName = null;
+                    fragmentTypeCondition = "";
+                    kind = DefinitionKind.OPERATION;
+                    extension = false;
+                    directiveNameExpected = false;
+                    inDirectiveLocations = false;
+                    typeConditionExpected = false;
+                    scopes.push(Scope.OTHER);
+                }
+                bodyOpened = true;
+                nameExpected = false;
+                continue;
+            }
+            if (type == DOLLAR) {
+                // template placeholder which isn't part of the current definition
+                nameExpected = false;
+                continue;
+            }
+            if (DEFINITION_KEYWORDS.contains(type) && (!nameExpected || (kind != DefinitionKind.OPERATION && kind != DefinitionKind.FRAGMENT))) {
+                // start of a new definition
+                addFragment(fragmentName, fragmentTypeCondition, fragmentOffset);
+                fragmentName = null;
+                fragmentTypeCondition = "";
+                extension = type != EXTEND_KEYWORD && prevType == EXTEND_KEYWORD && kind == DefinitionKind.NONE;
+                kind = getDefinitionKind(type);
+                nameExpected = kind != DefinitionKind.NONE && kind != DefinitionKind.SCHEMA && kind != DefinitionKind.DIRECTIVE;
+                directiveNameExpected = kind == DefinitionKind.DIRECTIVE;
+                bodyOpened = false;
+                inDirectiveLocations = false;
+                typeConditionExpected = false;
+                continue;
+            }
+            if (!IDENTIFIER_TOKENS.contains(type)) {
+                if (type != AT) {
+                    nameExpected = false;
+                }
+                continue;
+            }
+            if (prevType == AT) {
+                if (directiveNameExpected) {
+                    addIdentifier(text, token, offsetInFile, IdentifierKind.DIRECTIVE_DEFINITION);
+                    lastDefinitionNameIndex = i;
+                    directiveNameExpected = false;
+                } else {
+                    addIdentifier(text, token, offsetInFile, IdentifierKind.USAGE);
+                }
+                nameExpected = false;
+                continue;
+            }
+            if (nameExpected && !(kind == DefinitionKind.FRAGMENT && type == ON_KEYWORD)) {
+                nameExpected = false;
+                switch (kind) {
+                    case FRAGMENT:
+                        addIdentifier(text, token, offsetInFile, IdentifierKind.FRAGMENT_DEFINITION);
+                        fragmentName = getText(text, token);
+                        fragmentOffset = offsetInFile + token.start;
+                        break;
+                    case OPERATION:
+                        addIdentifier(text, token, offsetInFile, IdentifierKind.USAGE);
+                        break;
+                    default:
+                        addIdentifier(text, token, offsetInFile, extension ? IdentifierKind.USAGE : IdentifierKind.TYPE_DEFINITION);
+                }
+                continue;
+            }
+            nameExpected = false;
+            if (type == ON_KEYWORD && (kind == DefinitionKind.FRAGMENT || kind == DefinitionKind.DIRECTIVE)) {
+                typeConditionExpected = kind == DefinitionKind.FRAGMENT;
+                inDirectiveLocations = kind == DefinitionKind.DIRECTIVE;
+                continue;
+            }
+            if ((type == IMPLEMENTS_KEYWORD && kind == DefinitionKind.OBJECT_OR_INTERFACE) || inDirectiveLocations) {
+                // keyword or directive location, neither of which are identifiers
+                continue;
+            }
+            if (typeConditionExpected) {
+                fragmentTypeCondition = getText(text, token);
+                typeConditionExpected = false;
+            }
+            addIdentifier(text, token, offsetInFile, IdentifierKind.USAGE);
+        }
+
+        addFragment(fragmentName, fragmentTypeCondition, fragmentOffset);
+    }
+
+    private static List<Token> tokenize(CharSequence text) {
+        final List<Token> tokens = Lists.newArrayList();
+        final Lexer lexer = new GraphQLLexerAdapter();
+        lexer.start(text);
+        boolean inTemplate = false;
+        IElementType prevType = null;
+        IElementType type;
+        while ((type = lexer.getTokenType()) != null) {
+            if (inTemplate) {
+                // template placeholders are represented by their dollar token
+                inTemplate = type != BRACE_R;
+            } else if (type == BRACE_L && prevType == DOLLAR) {
+                inTemplate = true;
+            } else if (!IGNORED_TOKENS.contains(type)) {
+                tokens.add(new Token(type, lexer.getTokenStart(), lexer.getTokenEnd()));
+            }
+            prevType = type;
+            lexer.advance();
+        }
+        return tokens;
+    }
+
+    private static DefinitionKind getDefinitionKind(IElementType keyword) {
+        if (keyword == QUERY_KEYWORD || keyword == MUTATION_KEYWORD || keyword == SUBSCRIPTION_KEYWORD) {
+            return DefinitionKind.OPERATION;
+        } else if (keyword == FRAGMENT_KEYWORD) {
+            return DefinitionKind.FRAGMENT;
+        } else if (keyword == SCHEMA_KEYWORD) {
+            return DefinitionKind.SCHEMA;
+        } else if (keyword == TYPE_KEYWORD || keyword == INTERFACE_KEYWORD) {
+            return DefinitionKind.OBJECT_OR_INTERFACE;
+        } else if (keyword == INPUT_KEYWORD) {
+            return DefinitionKind.INPUT;
+        } else if (keyword == ENUM_KEYWORD) {
+            return DefinitionKind.ENUM;
+        } else if (keyword == UNION_KEYWORD) {
+            return DefinitionKind.UNION;
+        } else if (keyword == SCALAR_KEYWORD) {
+            return DefinitionKind.SCALAR;
+        } else if (keyword == DIRECTIVE_KEYWORD) {
+            return DefinitionKind.DIRECTIVE;
+        }
+        return DefinitionKind.NONE;
+    }
+
+    /**
+     * Gets the scope of the braces that follow a definition, or null if the definition doesn't have a body
+     */
+    @Nullable
+    private static Scope getBodyScope(DefinitionKind kind) {
+        switch (kind) {
+            case OPERATION:
+            case FRAGMENT:
+                return Scope.OTHER;
+            case SCHEMA:
+                return Scope.OPERATION_TYPES;
+            case OBJECT_OR_INTERFACE:
+                return Scope.FIELDS;
+            case INPUT:
+                return Scope.INPUT_FIELDS;
+            case ENUM:
+                return Scope.ENUM_VALUES;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets whether a name is a boolean or null value rather than an enum value identifier
+     */
+    private static boolean isLiteralValue(CharSequence text, Token token, IElementType prevType, Scope scope) {
+        if (token.type != NAME || (prevType != COLON && prevType != EQUALS && scope != Scope.LIST)) {
+            return false;
+        }
+        final String name = getText(text, token);
+        return "true".equals(name) || "false".equals(name) || "null".equals(name);
+    }
+
+    private static String getText(CharSequence text, Token token) {
+        return text.subSequence(token.start, token.end).toString();
+    }
+
+    private void addIdentifier(CharSequence text, Token token, int offsetInFile, IdentifierKind kind) {
+        identifiers.computeIfAbsent(getText(text, token), name -> new IdentifierLocations()).add(kind, offsetInFile + token.start);
+    }
+
+    private void addFragment(@Nullable String fragmentName, String typeCondition, int offset) {
+        if (fragmentName != null) {
+            fragments.computeIfAbsent(fragmentName, name -> new FragmentLocations()).add(typeCondition, offset);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.project.indexing;
+
+import com.intellij.json.JsonElementTypes;
+import com.intellij.json.JsonLexer;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.util.text.CharArrayUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * Scans JSON GraphQL introspection results using the JSON lexer, such that large introspection files can be indexed without building
+ * their JSON PSI. Memory use is independent of the size of the JSON, apart from the text itself.
+ */
+class GraphQLIntrospectionJsonScanner {
+
+    private static final TokenSet IGNORED_TOKENS = TokenSet.create(TokenType.WHITE_SPACE, JsonElementTypes.LINE_COMMENT, JsonElementTypes.BLOCK_COMMENT);
+    private static final TokenSet STRING_TOKENS = TokenSet.create(JsonElementTypes.DOUBLE_QUOTED_STRING, JsonElementTypes.SINGLE_QUOTED_STRING);
+    private static final TokenSet OPENING_TOKENS = TokenSet.create(JsonElementTypes.L_CURLY, JsonElementTypes.L_BRACKET);
+    private static final TokenSet CLOSING_TOKENS = TokenSet.create(JsonElementTypes.R_CURLY, JsonElementTypes.R_BRACKET);
+
+    private GraphQLIntrospectionJsonScanner() {
+    }
+
+    /**
+     * Gets whether JSON is a GraphQL introspection result, i.e. has a top-level "__schema" property, or a "__schema" property inside
+     * a top-level "data" property. The scan stops as soon as the "__schema" property is found.
+     */
+    static boolean isIntrospectionJson(@NotNull CharSequence json) {
+        final Lexer lexer = new JsonLexer();
+        lexer.start(json);
+        int depth = 0;
+        // the depth of the object value of the top-level "data" property, or -1 outside that object
+        int dataDepth = -1;
+        int prevStringStart = -1;
+        boolean dataValueExpected = false;
+        IElementType type;
+        while ((type = lexer.getTokenType()) != null) {
+            if (!IGNORED_TOKENS.contains(type)) {
+                if (type == JsonElementTypes.COLON && prevStringStart != -1) {
+                    final int prevStringEnd = lexer.getTokenStart();
+                    if (isString(json, prevStringStart, prevStringEnd, "__schema") && (depth == 1 || (depth == 2 && dataDepth == 2))) {
+                        return true;
+                    }
+                    dataValueExpected = depth == 1 && isString(json, prevStringStart, prevStringEnd, "data");
+                    prevStringStart = -1;
+                    lexer.advance();
+                    continue;
+                }
+                if (OPENING_TOKENS.contains(type)) {
+                    depth++;
+                    if (dataValueExpected && type == JsonElementTypes.L_CURLY) {
+                        dataDepth = depth;
+                    }
+                } else if (CLOSING_TOKENS.contains(type)) {
+                    if (depth == dataDepth) {
+                        dataDepth = -1;
+                    }
+                    depth--;
+                }
+                dataValueExpected = false;
+                prevStringStart = STRING_TOKENS.contains(type) ? lexer.getTokenStart() : -1;
+            }
+            lexer.advance();
+        }
+        return false;
+    }
+
+    /**
+     * Processes the string values of all "name" properties, which is how GraphQL identifiers are defined in introspection results:
+     * https://graphql.github.io/graphql-spec/June2018/#sec-Schema-Introspection
+     */
+    static void processNames(@NotNull CharSequence json, @NotNull Consumer<String> consumer) {
+        final Lexer lexer = new JsonLexer();
+        lexer.start(json);
+        int prevStringStart = -1;
+        boolean nameValueExpected = false;
+        IElementType type;
+        while ((type = lexer.getTokenType()) != null) {
+            if (!IGNORED_TOKENS.contains(type)) {
+                if (type == JsonElementTypes.COLON && prevStringStart != -1) {
+                    nameValueExpected = isString(json, prevStringStart, lexer.getTokenStart(), "name");
+                    prevStringStart = -1;
+                } else {
+                    final boolean stringToken = STRING_TOKENS.contains(type);
+                    if (nameValueExpected && stringToken) {
+                        consumer.accept(StringUtil.unescapeStringCharacters(StringUtil.unquoteString(lexer.getTokenText())));
+                    }
+                    nameValueExpected = false;
+                    prevStringStart = stringToken ? lexer.getTokenStart() : -1;
+                }
+            }
+            lexer.advance();
+        }
+    }
+
+    /**
+     * Gets whether the text before a colon, starting with a string token, is the quoted value, ignoring whitespace before the colon
+     */
+    private static boolean isString(CharSequence json, int start, int colonOffset, String value) {
+        int end = colonOffset;
+        while (end > start && Character.isWhitespace(json.charAt(end - 1))) {
+            end--;
+        }
+        return end - start == value.length() + 2 && CharArrayUtil.regionMatches(json, start + 1, value);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.project.indexing;
+
+import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeSystemDefinition;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.BooleanDataDescriptor;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+
+/**
+ * Index for processing GraphQL files that contain one or more type system definitions, e.g. types, extensions, directives, and schema definitions.
+ * Enables schema discovery to skip files that only contain operations and fragments without loading their PSI.
+ */
+public class GraphQLTypeSystemDefinitionIndex extends FileBasedIndexExtension<String, Boolean> {
+
+    public static final ID<String, Boolean> NAME = ID.create("GraphQLTypeSystemDefinitionIndex");
+
+    public static final String HAS_TYPE_SYSTEM_DEFINITIONS = "typeSystemDefinitions";
+
+    private final DataIndexer<String, Boolean, FileContent> myDataIndexer;
+
+    public GraphQLTypeSystemDefinitionIndex() {
+        myDataIndexer = inputData -> {
+            // type system definitions are top level, so no need to visit deeper
+            for (PsiElement child = inputData.getPsiFile().getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof GraphQLTypeSystemDefinition) {
+                    return Collections.singletonMap(HAS_TYPE_SYSTEM_DEFINITIONS, true);
+                }
+            }
+            return Collections.emptyMap();
+        };
+    }
+
+    @NotNull
+    @Override
+    public ID<String, Boolean> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Boolean, FileContent> getIndexer() {
+        return myDataIndexer;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return new EnumeratorStringDescriptor();
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Boolean> getValueExternalizer() {
+        return BooleanDataDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return file -> file.getFileType() == GraphQLFileType.INSTANCE;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+}
@@ -7,61 +7,237 @@
  */
 package com.intellij.lang.jsgraphql.ide.project.javascript;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.lang.jsgraphql.GraphQLLexerAdapter;
 import com.intellij.lang.jsgraphql.ide.injection.javascript.GraphQLLanguageInjectionUtil;
 import com.intellij.lang.jsgraphql.ide.references.GraphQLFindUsagesUtil;
+import com.intellij.lexer.Lexer;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.util.Ref;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
 import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
 import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
 import com.intellij.util.io.KeyDescriptor;
+import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+import static com.intellij.lang.jsgraphql.psi.GraphQLElementTypes.*;
+
 /**
- * Indexes files which contain GraphQL Injection to enable discovery of type definitions written using injected Schema IDL.
+ * Indexes the GraphQL injections of files to enable discovery of type definitions written using injected Schema IDL.
+ * <p>
+ * The value holds the offset and environment of each injection, and whether the injection contains type system definitions.
+ * Every file with injections is indexed under {@link #DATA_KEY}, and files with injected type system definitions are additionally
+ * indexed under {@link #TYPE_SYSTEM_DEFINITIONS_KEY}, such that schema discovery only has to visit the injections that declare types.
  */
-public class GraphQLInjectionIndex extends ScalarIndexExtension<String> {
+public class GraphQLInjectionIndex extends FileBasedIndexExtension<String, GraphQLInjectionIndex.InjectionLocations> {
 
-    public static final ID<String, Void> NAME = ID.create(GraphQLInjectionIndex.class.getName());
+    public static final ID<String, InjectionLocations> NAME = ID.create(GraphQLInjectionIndex.class.getName());
     public static final String DATA_KEY = "true";
+    public static final String TYPE_SYSTEM_DEFINITIONS_KEY = "typeSystemDefinitions";
+
+    private static final TokenSet TYPE_SYSTEM_DEFINITION_KEYWORDS = TokenSet.create(
+            SCHEMA_KEYWORD, TYPE_KEYWORD, INTERFACE_KEYWORD, INPUT_KEYWORD, ENUM_KEYWORD, UNION_KEYWORD, SCALAR_KEYWORD, DIRECTIVE_KEYWORD, EXTEND_KEYWORD
+    );
+
+    // tokens after which a type system keyword is used as a name rather than starting a definition, e.g. 'fragment F on type'
+    private static final TokenSet NAME_PREFIX_TOKENS = TokenSet.create(
+            ON_KEYWORD, AT, QUERY_KEYWORD, MUTATION_KEYWORD, SUBSCRIPTION_KEYWORD, FRAGMENT_KEYWORD
+    );
+
+    private static final TokenSet OPENING_TOKENS = TokenSet.create(BRACE_L, PAREN_L, BRACKET_L);
+    private static final TokenSet CLOSING_TOKENS = TokenSet.create(BRACE_R, PAREN_R, BRACKET_R);
 
-    private static final Map<String, Void> INJECTED_KEY = Collections.singletonMap(DATA_KEY, null);
+    private static final TokenSet IGNORED_TOKENS = TokenSet.create(TokenType.WHITE_SPACE, COMMENT, OPEN_QUOTE, REGULAR_STRING_PART, CLOSING_QUOTE);
 
-    private final DataIndexer<String, Void, FileContent> myDataIndexer;
+    private final DataIndexer<String, InjectionLocations, FileContent> myDataIndexer;
     private final Set<FileType> includedFileTypes;
 
+    /**
+     * The GraphQL injections in a single file
+     */
+    public static class InjectionLocations {
+
+        private final List<Injection> injections;
+
+        InjectionLocations() {
+            this(Lists.newArrayListWithExpectedSize(1));
+        }
+
+        private InjectionLocations(List<Injection> injections) {
+            this.injections = injections;
+        }
+
+        /**
+         * Gets the injections in the order they appear in the file
+         */
+        public List<Injection> getInjections() {
+            return Collections.unmodifiableList(injections);
+        }
+
+        /**
+         * Gets whether one or more of the injections contain type system definitions
+         */
+        public boolean hasTypeSystemDefinitions() {
+            for (Injection injection : injections) {
+                if (injection.hasTypeSystemDefinitions()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            InjectionLocations that = (InjectionLocations) o;
+            return injections.equals(that.injections);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(injections);
+        }
+    }
+
+    /**
+     * A GraphQL injection, identified by the start offset of its injection host
+     */
+    public static class Injection {
+
+        private final int hostOffset;
+        private final String environment;
+        private final boolean typeSystemDefinitions;
+
+        Injection(int hostOffset, @NotNull String environment, boolean typeSystemDefinitions) {
+            this.hostOffset = hostOffset;
+            this.environment = environment;
+            this.typeSystemDefinitions = typeSystemDefinitions;
+        }
+
+        /**
+         * Gets the start offset of the injection host in the file
+         */
+        public int getHostOffset() {
+            return hostOffset;
+        }
+
+        /**
+         * Gets the GraphQL environment of the injection, e.g. {@link GraphQLLanguageInjectionUtil#RELAY_ENVIRONMENT}
+         */
+        @NotNull
+        public String getEnvironment() {
+            return environment;
+        }
+
+        /**
+         * Gets whether the injection contains one or more type system definitions, e.g. types, directives or schema extensions
+         */
+        public boolean hasTypeSystemDefinitions() {
+            return typeSystemDefinitions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Injection that = (Injection) o;
+            return hostOffset == that.hostOffset && typeSystemDefinitions == that.typeSystemDefinitions && environment.equals(that.environment);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hostOffset, environment, typeSystemDefinitions);
+        }
+    }
+
     public GraphQLInjectionIndex() {
         myDataIndexer = inputData -> {
-            final Ref<String> environment = new Ref<>();
+            final InjectionLocations locations = new InjectionLocations();
             inputData.getPsiFile().accept(new PsiRecursiveElementVisitor() {
                 @Override
                 public void visitElement(PsiElement element) {
-                    if (!GraphQLLanguageInjectionUtil.isJSGraphQLLanguageInjectionTarget(element, environment)) {
+                    final Ref<String> environment = new Ref<>();
+                    if (GraphQLLanguageInjectionUtil.isJSGraphQLLanguageInjectionTarget(element, environment)) {
+                        final String graphqlBuffer = StringUtils.strip(element.getText(), "` \t\n");
+                        locations.injections.add(new Injection(
+                                element.getTextRange().getStartOffset(),
+                                StringUtils.defaultString(environment.get(), GraphQLLanguageInjectionUtil.GRAPHQL_ENVIRONMENT),
+                                hasTypeSystemDefinitions(graphqlBuffer)
+                        ));
+                    } else {
                         // visit deeper until injection found
                         super.visitElement(element);
                     }
                 }
             });
-            return environment.isNull() ? Collections.emptyMap() : INJECTED_KEY;
+            if (locations.injections.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            final Map<String, InjectionLocations> result = Maps.newHashMapWithExpectedSize(2);
+            result.put(DATA_KEY, locations);
+            if (locations.hasTypeSystemDefinitions()) {
+                result.put(TYPE_SYSTEM_DEFINITIONS_KEY, locations);
+            }
+            return result;
         };
         includedFileTypes = GraphQLFindUsagesUtil.getService().getIncludedFileTypes();
     }
 
+    /**
+     * Gets whether GraphQL text contains type system definitions by looking for a top-level definition keyword using the lexer,
+     * such that injections don't have to be parsed to be indexed.
+     */
+    static boolean hasTypeSystemDefinitions(@NotNull CharSequence text) {
+        final Lexer lexer = new GraphQLLexerAdapter();
+        lexer.start(text);
+        int depth = 0;
+        IElementType prevType = null;
+        IElementType type;
+        while ((type = lexer.getTokenType()) != null) {
+            if (!IGNORED_TOKENS.contains(type)) {
+                if (OPENING_TOKENS.contains(type)) {
+                    depth++;
+                } else if (CLOSING_TOKENS.contains(type)) {
+                    depth = Math.max(0, depth - 1);
+                } else if (depth == 0 && TYPE_SYSTEM_DEFINITION_KEYWORDS.contains(type) && (prevType == null || !NAME_PREFIX_TOKENS.contains(prevType))) {
+                    return true;
+                }
+                prevType = type;
+            }
+            lexer.advance();
+        }
+        return false;
+    }
+
     @NotNull
     @Override
-    public ID<String, Void> getName() {
+    public ID<String, InjectionLocations> getName() {
         return NAME;
     }
 
     @NotNull
     @Override
-    public DataIndexer<String, Void, FileContent> getIndexer() {
+    public DataIndexer<String, InjectionLocations, FileContent> getIndexer() {
         return myDataIndexer;
     }
 
@@ -71,6 +247,34 @@ public class GraphQLInjectionIndex extends ScalarIndexExtension<String> {
         return EnumeratorStringDescriptor.INSTANCE;
     }
 
+    @NotNull
+    @Override
+    public DataExternalizer<InjectionLocations> getValueExternalizer() {
+        return new DataExternalizer<InjectionLocations>() {
+            @Override
+            public void save(@NotNull DataOutput out, InjectionLocations value) throws IOException {
+                DataInputOutputUtil.writeINT(out, value.injections.size());
+                for (Injection injection : value.injections) {
+                    DataInputOutputUtil.writeINT(out, injection.hostOffset);
+                    IOUtil.writeUTF(out, injection.environment);
+                    out.writeBoolean(injection.typeSystemDefinitions);
+                }
+            }
+
+            @Override
+            public InjectionLocations read(@NotNull DataInput in) throws IOException {
+                final int size = DataInputOutputUtil.readINT(in);
+                final List<Injection> injections = Lists.newArrayListWithCapacity(size);
+                for (int i = 0; i < size; i++) {
+                    final int hostOffset = DataInputOutputUtil.readINT(in);
+                    final String environment = IOUtil.readUTF(in);
+                    injections.add(new Injection(hostOffset, environment, in.readBoolean()));
+                }
+                return new InjectionLocations(injections);
+            }
+        };
+    }
+
     @NotNull
     @Override
     public FileBasedIndex.InputFilter getInputFilter() {
@@ -84,6 +288,6 @@ public class GraphQLInjectionIndex extends ScalarIndexExtension<String> {
 
     @Override
     public int getVersion() {
-        return 3;
+        return 4;
     }
 }
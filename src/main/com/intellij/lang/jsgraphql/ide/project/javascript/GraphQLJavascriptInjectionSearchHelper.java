@@ -7,19 +7,23 @@
  */
 package com.intellij.lang.jsgraphql.ide.project.javascript;
 
+import com.google.common.collect.Lists;
 import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.lang.jsgraphql.ide.injection.javascript.GraphQLLanguageInjectionUtil;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLInjectionSearchHelper;
 import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
 import com.intellij.util.indexing.FileBasedIndex;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 
 public class GraphQLJavascriptInjectionSearchHelper implements GraphQLInjectionSearchHelper {
@@ -37,25 +41,63 @@ public class GraphQLJavascriptInjectionSearchHelper implements GraphQLInjectionS
      * @param consumer      a consumer that will be invoked for each injected GraphQL PsiFile
      */
     public void processInjectedGraphQLPsiFiles(PsiElement scopedElement, GlobalSearchScope schemaScope, Consumer<PsiFile> consumer) {
+        processInjectedGraphQLPsiFiles(scopedElement, schemaScope, GraphQLInjectionIndex.DATA_KEY, consumer);
+    }
+
+    /**
+     * Uses the {@link GraphQLInjectionIndex} to process the injected GraphQL PsiFiles that contain type system definitions
+     *
+     * @param scopedElement the starting point of the enumeration settings the scopedElement of the processing
+     * @param schemaScope   the search scope to use for limiting the schema definitions
+     * @param consumer      a consumer that will be invoked for each injected GraphQL PsiFile with type system definitions
+     */
+    @Override
+    public void processInjectedTypeSystemDefinitionPsiFiles(PsiElement scopedElement, GlobalSearchScope schemaScope, Consumer<PsiFile> consumer) {
+        processInjectedGraphQLPsiFiles(scopedElement, schemaScope, GraphQLInjectionIndex.TYPE_SYSTEM_DEFINITIONS_KEY, consumer);
+    }
+
+    @Override
+    public void processFilesWithInjectedTypeSystemDefinitions(GlobalSearchScope schemaScope, Processor<VirtualFile> processor) {
+        FileBasedIndex.getInstance().getFilesWithKey(GraphQLInjectionIndex.NAME, Collections.singleton(GraphQLInjectionIndex.TYPE_SYSTEM_DEFINITIONS_KEY), processor, schemaScope);
+    }
+
+    private void processInjectedGraphQLPsiFiles(PsiElement scopedElement, GlobalSearchScope schemaScope, String indexKey, Consumer<PsiFile> consumer) {
         try {
             final PsiManager psiManager = PsiManager.getInstance(scopedElement.getProject());
             final InjectedLanguageManager injectedLanguageManager = InjectedLanguageManager.getInstance(scopedElement.getProject());
-            FileBasedIndex.getInstance().getFilesWithKey(GraphQLInjectionIndex.NAME, Collections.singleton(GraphQLInjectionIndex.DATA_KEY), virtualFile -> {
+            final boolean typeSystemDefinitionsOnly = GraphQLInjectionIndex.TYPE_SYSTEM_DEFINITIONS_KEY.equals(indexKey);
+            FileBasedIndex.getInstance().processValues(GraphQLInjectionIndex.NAME, indexKey, null, (virtualFile, locations) -> {
                 final PsiFile fileWithInjection = psiManager.findFile(virtualFile);
                 if (fileWithInjection != null) {
-                    fileWithInjection.accept(new PsiRecursiveElementVisitor() {
-                        @Override
-                        public void visitElement(PsiElement element) {
-                            if (GraphQLLanguageInjectionUtil.isJSGraphQLLanguageInjectionTarget(element)) {
-                                injectedLanguageManager.enumerate(element, (injectedPsi, places) -> {
-                                    consumer.accept(injectedPsi);
-                                });
-                            } else {
-                                // visit deeper until injection found
-                                super.visitElement(element);
-                            }
+                    final List<PsiElement> hosts = Lists.newArrayListWithExpectedSize(locations.getInjections().size());
+                    for (GraphQLInjectionIndex.Injection injection : locations.getInjections()) {
+                        if (typeSystemDefinitionsOnly && !injection.hasTypeSystemDefinitions()) {
+                            continue;
                         }
-                    });
+                        final PsiElement host = findInjectionHost(fileWithInjection, injection.getHostOffset());
+                        if (host == null) {
+                            // the index is out of sync with the PSI, so fall back to visiting the file
+                            hosts.clear();
+                            fileWithInjection.accept(new PsiRecursiveElementVisitor() {
+                                @Override
+                                public void visitElement(PsiElement element) {
+                                    if (GraphQLLanguageInjectionUtil.isJSGraphQLLanguageInjectionTarget(element)) {
+                                        hosts.add(element);
+                                    } else {
+                                        // visit deeper until injection found
+                                        super.visitElement(element);
+                                    }
+                                }
+                            });
+                            break;
+                        }
+                        hosts.add(host);
+                    }
+                    for (PsiElement host : hosts) {
+                        injectedLanguageManager.enumerate(host, (injectedPsi, places) -> {
+                            consumer.accept(injectedPsi);
+                        });
+                    }
                 }
                 return true;
             }, schemaScope);
@@ -64,6 +106,20 @@ public class GraphQLJavascriptInjectionSearchHelper implements GraphQLInjectionS
         }
     }
 
+    /**
+     * Finds the injection host that starts at an indexed offset, or null if no injection host starts at the offset
+     */
+    private static PsiElement findInjectionHost(PsiFile psiFile, int hostOffset) {
+        PsiElement element = psiFile.findElementAt(hostOffset);
+        while (element != null && !(element instanceof PsiFile) && element.getTextRange().getStartOffset() == hostOffset) {
+            if (GraphQLLanguageInjectionUtil.isJSGraphQLLanguageInjectionTarget(element)) {
+                return element;
+            }
+            element = element.getParent();
+        }
+        return null;
+    }
+
     @Override
     public String applyInjectionDelimitingQuotesEscape(String rawGraphQLText) {
         if (rawGraphQLText != null && rawGraphQLText.contains("\\`")) {
@@ -11,10 +11,12 @@ import com.google.common.collect.Maps;
 import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointNamedTypeRegistry;
 import com.intellij.lang.jsgraphql.endpoint.psi.*;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLPsiSearchHelper;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLIdentifierIndex.IdentifierKind;
 import com.intellij.lang.jsgraphql.psi.*;
 import com.intellij.lang.jsgraphql.psi.impl.GraphQLDirectiveImpl;
 import com.intellij.lang.jsgraphql.psi.impl.GraphQLFieldImpl;
 import com.intellij.lang.jsgraphql.psi.impl.GraphQLReferencePsiElement;
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaChangeListener;
 import com.intellij.lang.jsgraphql.schema.GraphQLTypeScopeProvider;
 import com.intellij.lang.jsgraphql.utils.GraphQLUtil;
 import com.intellij.lang.jsgraphql.v1.schema.ide.type.JSGraphQLNamedType;
@@ -22,11 +24,10 @@ import com.intellij.lang.jsgraphql.v1.schema.ide.type.JSGraphQLPropertyType;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.*;
-import com.intellij.psi.impl.AnyPsiChangeListener;
-import com.intellij.psi.impl.PsiManagerImpl;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
 import com.intellij.psi.util.PsiTreeUtil;
 import graphql.schema.GraphQLType;
@@ -34,8 +35,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Predicate;
 
 public class GraphQLReferenceService {
@@ -43,6 +46,10 @@ public class GraphQLReferenceService {
     private final Map<String, PsiReference> logicalTypeNameToReference = Maps.newConcurrentMap();
     private final GraphQLPsiSearchHelper psiSearchHelper;
 
+    // the type name cache is only cleared when GraphQL changes, such that edits to other files don't affect it
+    private final ModificationTracker graphQLModificationTracker;
+    private volatile long typeNameCacheModificationCount = -1;
+
     /**
      * Sentinel reference for use in concurrent maps which don't allow nulls
      */
@@ -66,13 +73,7 @@ public class GraphQLReferenceService {
 
     public GraphQLReferenceService(@NotNull final Project project) {
         psiSearchHelper = GraphQLPsiSearchHelper.getService(project);
-        project.getMessageBus().connect().subscribe(PsiManagerImpl.ANY_PSI_CHANGE_TOPIC, new AnyPsiChangeListener.Adapter() {
-            @Override
-            public void beforePsiChanged(boolean isPhysical) {
-                // clear the cache on each PSI change
-                logicalTypeNameToReference.clear();
-            }
-        });
+        graphQLModificationTracker = GraphQLSchemaChangeListener.getService(project).getGraphQLModificationTracker();
     }
 
     public PsiReference resolveReference(GraphQLReferencePsiElement element) {
@@ -216,23 +217,19 @@ public class GraphQLReferenceService {
             final GraphQLPsiSearchHelper graphQLPsiSearchHelper = GraphQLPsiSearchHelper.getService(element.getProject());
             if (name.startsWith("__")) {
                 // __typename or introspection fields __schema and __type which implicitly extends the query root type
-                graphQLPsiSearchHelper.getBuiltInSchema().accept(new PsiRecursiveElementVisitor() {
-                    @Override
-                    public void visitElement(final PsiElement schemaElement) {
-                        if (schemaElement instanceof GraphQLReferencePsiElement && schemaElement.getText().equals(name)) {
-                            reference.set(createReference(element, schemaElement));
-                            return;
-                        }
-                        super.visitElement(schemaElement);
+                for (PsiNamedElement schemaElement : graphQLPsiSearchHelper.getBuiltInSchemaElementsWithName(graphQLPsiSearchHelper.getBuiltInSchema(), name)) {
+                    if (schemaElement instanceof GraphQLReferencePsiElement) {
+                        reference.set(createReference(element, schemaElement));
+                        break;
                     }
-                });
+                }
             }
             final GraphQLTypeScopeProvider typeScopeProvider = PsiTreeUtil.getParentOfType(field, GraphQLTypeScopeProvider.class);
             if (reference.isNull() && typeScopeProvider != null) {
                 GraphQLType typeScope = typeScopeProvider.getTypeScope();
                 if (typeScope != null) {
                     final GraphQLType fieldType = GraphQLUtil.getUnmodifiedType(typeScope);
-                    graphQLPsiSearchHelper.processElementsWithWord(element, name, psiNamedElement -> {
+                    graphQLPsiSearchHelper.processDefinitionsWithWord(element, name, EnumSet.of(IdentifierKind.FIELD_DEFINITION), psiNamedElement -> {
                         if (psiNamedElement.getParent() instanceof com.intellij.lang.jsgraphql.psi.GraphQLFieldDefinition) {
                             final GraphQLFieldDefinition fieldDefinition = (GraphQLFieldDefinition) psiNamedElement.getParent();
                             if (!Objects.equals(fieldDefinition.getName(), name)) {
@@ -314,9 +311,19 @@ public class GraphQLReferenceService {
         // intentionally not using computeIfAbsent here to avoid locking during long-running write actions
         // it's better to compute multiple times in certain rare cases than blocking
         // NOTE: concurrent hash map doesn't allow nulls, so using the NULL_REFERENCE sentinel value to avoid re-computation of unresolvable references
+        final long modificationCount = graphQLModificationTracker.getModificationCount();
+        if (modificationCount != typeNameCacheModificationCount) {
+            logicalTypeNameToReference.clear();
+            typeNameCacheModificationCount = modificationCount;
+        }
         PsiReference psiReference = logicalTypeNameToReference.get(logicalTypeName);
+        if (psiReference != null && psiReference != NULL_REFERENCE && !isValidReference(psiReference)) {
+            // resolved while GraphQL was being changed and before the tracker was incremented
+            logicalTypeNameToReference.remove(logicalTypeName, psiReference);
+            psiReference = null;
+        }
         if (psiReference == null) {
-            psiReference = resolveUsingIndex(element, psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier && psiNamedElement.getParent() instanceof GraphQLTypeNameDefinition);
+            psiReference = resolveUsingIndex(element, EnumSet.of(IdentifierKind.TYPE_DEFINITION), psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier && psiNamedElement.getParent() instanceof GraphQLTypeNameDefinition);
             if (psiReference == null) {
                 // fallback to resolving to Endpoint language elements
                 final JSGraphQLEndpointNamedTypeRegistry endpointNamedTypeRegistry = JSGraphQLEndpointNamedTypeRegistry.getService(element.getProject());
@@ -332,8 +339,13 @@ public class GraphQLReferenceService {
     }
 
 
+    private static boolean isValidReference(PsiReference psiReference) {
+        final PsiElement resolved = psiReference.resolve();
+        return resolved != null && resolved.isValid() && psiReference.getElement().isValid();
+    }
+
     PsiReference resolveFragmentDefinition(GraphQLReferencePsiElement element) {
-        return resolveUsingIndex(element, psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier && psiNamedElement.getParent() instanceof GraphQLFragmentDefinition);
+        return resolveUsingIndex(element, EnumSet.of(IdentifierKind.FRAGMENT_DEFINITION), psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier && psiNamedElement.getParent() instanceof GraphQLFragmentDefinition);
     }
 
     private PsiReference resolveObjectField(GraphQLReferencePsiElement element, GraphQLObjectField field) {
@@ -345,7 +357,7 @@ public class GraphQLReferenceService {
                 if (typeScope != null) {
                     final String namedTypeScope = GraphQLUtil.getUnmodifiedType(typeScope).getName();
                     final Ref<Boolean> resolved = Ref.create(false);
-                    final PsiReference reference = resolveUsingIndex(element, psiNamedElement -> {
+                    final PsiReference reference = resolveUsingIndex(element, EnumSet.of(IdentifierKind.INPUT_VALUE_DEFINITION), psiNamedElement -> {
                         if (psiNamedElement.getParent() instanceof GraphQLInputValueDefinition) {
                             final GraphQLInputObjectTypeDefinition inputTypeDefinition = PsiTreeUtil.getParentOfType(psiNamedElement, GraphQLInputObjectTypeDefinition.class);
                             if (inputTypeDefinition != null && inputTypeDefinition.getTypeNameDefinition() != null) {
@@ -384,7 +396,7 @@ public class GraphQLReferenceService {
                 if (typeScope != null) {
                     final String namedTypeScope = GraphQLUtil.getUnmodifiedType(typeScope).getName();
                     final Ref<Boolean> resolved = Ref.create(false);
-                    final PsiReference reference = resolveUsingIndex(element, psiNamedElement -> {
+                    final PsiReference reference = resolveUsingIndex(element, EnumSet.of(IdentifierKind.ENUM_VALUE_DEFINITION), psiNamedElement -> {
                         if (psiNamedElement.getParent() instanceof GraphQLEnumValue) {
                             final GraphQLEnumTypeDefinition enumTypeDefinition = PsiTreeUtil.getParentOfType(psiNamedElement, GraphQLEnumTypeDefinition.class);
                             if (enumTypeDefinition != null && enumTypeDefinition.getTypeNameDefinition() != null) {
@@ -420,15 +432,15 @@ public class GraphQLReferenceService {
     }
 
     private PsiReference resolveDirective(GraphQLReferencePsiElement element) {
-        return resolveUsingIndex(element, psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier && psiNamedElement.getParent() instanceof GraphQLDirectiveDefinition);
+        return resolveUsingIndex(element, EnumSet.of(IdentifierKind.DIRECTIVE_DEFINITION), psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier && psiNamedElement.getParent() instanceof GraphQLDirectiveDefinition);
     }
 
 
-    private PsiReference resolveUsingIndex(GraphQLReferencePsiElement element, Predicate<PsiNamedElement> isMatch) {
+    private PsiReference resolveUsingIndex(GraphQLReferencePsiElement element, Set<IdentifierKind> definitionKinds, Predicate<PsiNamedElement> isMatch) {
         final String name = element.getName();
         Ref<PsiReference> reference = new Ref<>();
         if (name != null) {
-            psiSearchHelper.processElementsWithWord(element, name, psiNamedElement -> {
+            psiSearchHelper.processDefinitionsWithWord(element, name, definitionKinds, psiNamedElement -> {
                 ProgressManager.checkCanceled();
                 if (isMatch.test(psiNamedElement)) {
                     reference.set(new PsiReferenceBase<PsiNamedElement>(element, TextRange.from(0, element.getTextLength())) {
@@ -25,6 +25,10 @@ public abstract class GraphQLArgumentPsiElement extends GraphQLNamedElementImpl
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final GraphQLSchema schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(getProject()).getSchema(this);
         final String argumentName = this.getName();
         if (schema != null && argumentName != null) {
@@ -15,7 +15,7 @@ import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.PsiNamedElement;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.PsiReferenceBase;
 import org.jetbrains.annotations.NotNull;
@@ -32,29 +32,26 @@ public abstract class GraphQLDirectiveLocationPsiElement extends GraphQLElementI
         final Ref<PsiReference> reference = new Ref<>();
         final GraphQLDirectiveLocationPsiElement psiElement = this;
         final String locationName = psiElement.getText();
-        GraphQLPsiSearchHelper.getService(getProject()).getBuiltInSchema().accept(new PsiRecursiveElementVisitor() {
-            @Override
-            public void visitElement(PsiElement element) {
-                if(element instanceof GraphQLEnumValue && element.getText().equals(locationName)) {
-                    final GraphQLIdentifier referencedEnumValue = ((GraphQLEnumValue) element).getNameIdentifier();
-                    reference.set(new PsiReferenceBase<PsiElement>(psiElement, new TextRange(0, psiElement.getTextLength())) {
-                        @Nullable
-                        @Override
-                        public PsiElement resolve() {
-                            return referencedEnumValue;
-                        }
+        final GraphQLPsiSearchHelper graphQLPsiSearchHelper = GraphQLPsiSearchHelper.getService(getProject());
+        for (PsiNamedElement element : graphQLPsiSearchHelper.getBuiltInSchemaElementsWithName(graphQLPsiSearchHelper.getBuiltInSchema(), locationName)) {
+            if (element instanceof GraphQLEnumValue) {
+                final GraphQLIdentifier referencedEnumValue = ((GraphQLEnumValue) element).getNameIdentifier();
+                reference.set(new PsiReferenceBase<PsiElement>(psiElement, new TextRange(0, psiElement.getTextLength())) {
+                    @Nullable
+                    @Override
+                    public PsiElement resolve() {
+                        return referencedEnumValue;
+                    }
 
-                        @NotNull
-                        @Override
-                        public Object[] getVariants() {
-                            return PsiReference.EMPTY_ARRAY;
-                        }
-                    });
-                    return; // done visiting
-                }
-                super.visitElement(element);
+                    @NotNull
+                    @Override
+                    public Object[] getVariants() {
+                        return PsiReference.EMPTY_ARRAY;
+                    }
+                });
+                break; // done searching
             }
-        });
+        }
         return reference.get();
     }
 }
@@ -27,6 +27,10 @@ public abstract class GraphQLFieldPsiElement extends GraphQLNamedElementImpl imp
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final GraphQLSchema schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(getProject()).getSchema(this);
         final String fieldName = this.getName();
         if (schema != null && fieldName != null) {
@@ -23,6 +23,10 @@ public abstract class GraphQLFragmentDefinitionPsiElement extends GraphQLNamedEl
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final GraphQLSchema schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(getProject()).getSchema(this);
         if (schema != null) {
             if(getTypeCondition() != null) {
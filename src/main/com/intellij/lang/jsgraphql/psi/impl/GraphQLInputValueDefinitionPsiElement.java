@@ -26,6 +26,10 @@ public abstract class GraphQLInputValueDefinitionPsiElement extends GraphQLNamed
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final com.intellij.lang.jsgraphql.psi.GraphQLType psiType = getType();
         if(psiType != null) {
             final GraphQLIdentifier typeIdentifier = PsiTreeUtil.findChildOfType(psiType, GraphQLIdentifier.class);
@@ -23,6 +23,10 @@ public abstract class GraphQLObjectFieldPsiElement extends GraphQLNamedElementIm
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final GraphQLSchema schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(getProject()).getSchema(this);
         if (schema != null && this.getName() != null) {
             // the type scope for an object field the type of the field as defined in the parent type scope
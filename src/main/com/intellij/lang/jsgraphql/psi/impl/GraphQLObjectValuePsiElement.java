@@ -26,6 +26,10 @@ public abstract class GraphQLObjectValuePsiElement extends GraphQLValueImpl impl
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final PsiElement parent = getParent();
         if(parent instanceof GraphQLArgument && parent instanceof GraphQLTypeScopeProvider) {
             // this object value is an argument value, so the type scope is defined by the argument type
@@ -30,6 +30,10 @@ public abstract class GraphQLSelectionSetOperationDefinitionPsiElement extends G
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final GraphQLSchema schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(getProject()).getSchema(this);
         if (schema != null) {
             // selection set operation definition is an anonymous query
@@ -24,6 +24,10 @@ public abstract class GraphQLTypedOperationDefinitionPsiElement extends GraphQLN
 
     @Override
     public GraphQLType getTypeScope() {
+        return GraphQLTypeScopeProvider.getCachedTypeScope(this, this::computeTypeScope);
+    }
+
+    private GraphQLType computeTypeScope() {
         final GraphQLSchema schema = GraphQLTypeDefinitionRegistryServiceImpl.getService(getProject()).getSchema(this);
         if (schema != null) {
             final IElementType operationType = getOperationType().getNode().getFirstChildNode().getElementType();
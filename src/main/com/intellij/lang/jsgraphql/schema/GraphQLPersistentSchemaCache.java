@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.intellij.json.JsonFileType;
+import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.lang.jsgraphql.ide.project.GraphQLPsiSearchHelper;
+import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLConfigManager;
+import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLNamedScope;
+import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.model.GraphQLConfigData;
+import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.model.GraphQLResolvedConfigData;
+import com.intellij.lang.jsgraphql.psi.GraphQLPsiUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Alarm;
+import graphql.language.*;
+import graphql.parser.Parser;
+import graphql.schema.idl.ScalarInfo;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists the merged type definitions of each schema as SDL in the IDE system directory, such that schemas
+ * can be restored after a restart without having to load and parse the PSI of every file that contributes to them.
+ * A restored schema is only used until the schema has been built from the project files in the current session.
+ * <p>
+ * The persisted SDL is keyed by the name of the schema scope, and starts with a fingerprint of the paths, time stamps and lengths of the
+ * files that contributed to the schema. A schema is only restored if the fingerprint still matches, e.g. not after the files were changed
+ * by a VCS update while the IDE was closed. The fingerprint is based on the files on disk, so schemas are only persisted once the
+ * documents of the contributing files have been saved.
+ * <p>
+ * Only the merged type definitions are persisted, so a restored schema has no errors until it has been built from the project files.
+ */
+class GraphQLPersistentSchemaCache {
+
+    private static final Logger LOG = Logger.getInstance(GraphQLPersistentSchemaCache.class);
+
+    /**
+     * Delay before changed schemas are written to disk, since schemas are rebuilt on most edits
+     */
+    private static final int SAVE_DELAY_MILLIS = 10000;
+
+    private static final String DEFAULT_SCOPE_NAME = "default";
+
+    private static final String FINGERPRINT_PREFIX = "# fingerprint: ";
+
+    private final Project project;
+    private final File cacheDir;
+
+    // content hashes of the SDL that is currently on disk
+    private final Map<String, String> cacheKeyToSavedHash = Maps.newConcurrentMap();
+
+    // schemas that have been built from the project files in this session, so the persisted SDL is no longer needed
+    private final Set<String> builtCacheKeys = Sets.newConcurrentHashSet();
+
+    private final Map<String, TypeDefinitionRegistry> restoredRegistries = Maps.newConcurrentMap();
+    private final Map<String, Pair<GlobalSearchScope, TypeDefinitionRegistry>> pendingSaves = Maps.newConcurrentMap();
+    private final Alarm saveAlarm;
+
+    GraphQLPersistentSchemaCache(@NotNull Project project) {
+        this.project = project;
+        this.cacheDir = new File(PathManager.getSystemPath(), "graphql/schemas/" + project.getLocationHash());
+        this.saveAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, project);
+    }
+
+    /**
+     * Gets the key that identifies the persisted schema of the element, based on the GraphQL config schema scope of its file
+     *
+     * @return the key, or null if the element isn't in a file that can be associated with a schema
+     */
+    @Nullable
+    String getCacheKey(@NotNull PsiElement psiElement) {
+        final VirtualFile virtualFile = GraphQLPsiUtil.getVirtualFile(psiElement.getContainingFile());
+        if (virtualFile == null || !virtualFile.isInLocalFileSystem()) {
+            return null;
+        }
+        final GraphQLNamedScope namedScope = GraphQLConfigManager.getService(project).getSchemaScope(virtualFile);
+        final String scopeName = namedScope != null && !namedScope.getName().isEmpty() ? namedScope.getName() : DEFAULT_SCOPE_NAME;
+        return getContentHash(scopeName);
+    }
+
+    /**
+     * Gets a fingerprint of the files that contribute to a schema, based on their paths, time stamps and lengths such that no file
+     * contents or PSI have to be loaded. Must be called in a read action.
+     *
+     * @return the fingerprint, or null if the files can't be determined yet, e.g. during indexing, or have unsaved changes
+     */
+    @Nullable
+    private String getContributingFilesFingerprint(@NotNull GlobalSearchScope schemaScope) {
+        try {
+            final Set<VirtualFile> files = Sets.newHashSet(FileTypeIndex.getFiles(GraphQLFileType.INSTANCE, schemaScope));
+            files.addAll(getIntrospectionFiles(schemaScope));
+            GraphQLPsiSearchHelper.getService(project).processFilesWithInjectedTypeSystemDefinitions(schemaScope, file -> {
+                files.add(file);
+                return true;
+            });
+            final FileDocumentManager fileDocumentManager = FileDocumentManager.getInstance();
+            final List<VirtualFile> sortedFiles = Lists.newArrayList(files);
+            sortedFiles.sort(Comparator.comparing(VirtualFile::getPath));
+            final Hasher hasher = Hashing.murmur3_128().newHasher();
+            for (VirtualFile file : sortedFiles) {
+                if (fileDocumentManager.isFileModified(file)) {
+                    // the schema contains edits that the time stamp and length of the file on disk don't reflect yet
+                    return null;
+                }
+                hasher.putString(file.getPath(), StandardCharsets.UTF_8).putLong(file.getTimeStamp()).putLong(file.getLength());
+            }
+            return hasher.hash().toString();
+        } catch (IndexNotReadyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the introspection JSON files in the schema scope, which are the files referenced as "schemaPath" by the graphql-config files
+     */
+    private Set<VirtualFile> getIntrospectionFiles(@NotNull GlobalSearchScope schemaScope) {
+        final Set<VirtualFile> introspectionFiles = Sets.newHashSet();
+        for (Map.Entry<VirtualFile, GraphQLConfigData> entry : GraphQLConfigManager.getService(project).getConfigurationsByPath().entrySet()) {
+            final GraphQLConfigData configData = entry.getValue();
+            addIntrospectionFile(introspectionFiles, entry.getKey(), configData, schemaScope);
+            if (configData.projects != null) {
+                for (GraphQLResolvedConfigData projectConfigData : configData.projects.values()) {
+                    addIntrospectionFile(introspectionFiles, entry.getKey(), projectConfigData, schemaScope);
+                }
+            }
+        }
+        return introspectionFiles;
+    }
+
+    private static void addIntrospectionFile(Set<VirtualFile> introspectionFiles, VirtualFile configBaseDir, GraphQLResolvedConfigData configData, GlobalSearchScope schemaScope) {
+        if (configData == null || StringUtils.isEmpty(configData.schemaPath)) {
+            return;
+        }
+        final VirtualFile schemaFile = configBaseDir.findFileByRelativePath(StringUtils.replaceChars(configData.schemaPath, '\\', '/'));
+        if (schemaFile != null && JsonFileType.INSTANCE.equals(schemaFile.getFileType()) && schemaScope.contains(schemaFile)) {
+            introspectionFiles.add(schemaFile);
+        }
+    }
+
+    /**
+     * Restores the persisted type definitions of a schema which hasn't been built in the current session.
+     * The fingerprint of the contributing files is only computed the first time a persisted schema is restored.
+     *
+     * @param cacheKey    the key of the schema
+     * @param schemaScope the scope of the files that contribute to the schema
+     * @return the restored registry, or null if the schema has already been built, or no valid SDL with a matching fingerprint is persisted
+     */
+    @Nullable
+    TypeDefinitionRegistry restore(@NotNull String cacheKey, @NotNull GlobalSearchScope schemaScope) {
+        if (builtCacheKeys.contains(cacheKey)) {
+            return null;
+        }
+        final TypeDefinitionRegistry restoredRegistry = restoredRegistries.get(cacheKey);
+        if (restoredRegistry != null) {
+            return restoredRegistry;
+        }
+        if (!getCacheFile(cacheKey).isFile()) {
+            return null;
+        }
+        final String fingerprint = getContributingFilesFingerprint(schemaScope);
+        if (fingerprint == null) {
+            return null;
+        }
+        // loaded outside the map to avoid blocking other schemas while the SDL is parsed
+        final TypeDefinitionRegistry registry = load(cacheKey, fingerprint);
+        if (registry == null) {
+            return null;
+        }
+        final TypeDefinitionRegistry existingRegistry = restoredRegistries.putIfAbsent(cacheKey, registry);
+        return existingRegistry != null ? existingRegistry : registry;
+    }
+
+    @Nullable
+    private TypeDefinitionRegistry load(String cacheKey, String fingerprint) {
+        final File cacheFile = getCacheFile(cacheKey);
+        try {
+            final String content = FileUtil.loadFile(cacheFile, StandardCharsets.UTF_8);
+            if (!content.startsWith(FINGERPRINT_PREFIX + fingerprint + "\n")) {
+                // the files of the schema have changed since it was persisted
+                return null;
+            }
+            final Document document = new Parser().parseDocument(content);
+            final TypeDefinitionRegistry registry = new TypeDefinitionRegistry();
+            for (Definition definition : document.getDefinitions()) {
+                if (definition instanceof SDLDefinition) {
+                    registry.add((SDLDefinition) definition);
+                }
+            }
+            cacheKeyToSavedHash.put(cacheKey, getContentHash(content));
+            return registry;
+        } catch (Exception e) {
+            // unreadable or invalid SDL, so remove it and build the schema from the project files instead
+            LOG.warn("Unable to restore persisted GraphQL schema from " + cacheFile.getPath(), e);
+            FileUtil.delete(cacheFile);
+            return null;
+        }
+    }
+
+    /**
+     * Queues the type definitions of a schema that has been built from the project files to be written to disk.
+     * The fingerprint of the contributing files is computed when the queued schemas are written, such that building schemas doesn't have to wait for it.
+     *
+     * @param cacheKey    the key of the schema
+     * @param schemaScope the scope of the files that the schema was built from
+     * @param registry    the type definitions of the schema
+     */
+    void save(@NotNull String cacheKey, @NotNull GlobalSearchScope schemaScope, @NotNull TypeDefinitionRegistry registry) {
+        builtCacheKeys.add(cacheKey);
+        restoredRegistries.remove(cacheKey);
+        pendingSaves.put(cacheKey, Pair.create(schemaScope, registry));
+        scheduleSave();
+    }
+
+    /**
+     * Drops the queued schemas whose scopes are affected by a schema change, since they no longer match the files they would be fingerprinted with.
+     * The schemas are queued again once they have been rebuilt.
+     *
+     * @param changedFiles the files that changed, or <code>null</code> if all schemas are considered changed
+     */
+    void discardPendingSaves(@Nullable Collection<VirtualFile> changedFiles) {
+        pendingSaves.values().removeIf(scopeAndRegistry -> GraphQLSchemaChangeListener.isSchemaScopeAffected(scopeAndRegistry.first, changedFiles));
+    }
+
+    private void scheduleSave() {
+        if (!saveAlarm.isDisposed()) {
+            saveAlarm.cancelAllRequests();
+            saveAlarm.addRequest(this::savePendingRegistries, SAVE_DELAY_MILLIS);
+        }
+    }
+
+    private void savePendingRegistries() {
+        boolean retry = false;
+        for (String cacheKey : Lists.newArrayList(pendingSaves.keySet())) {
+            if (project.isDisposed()) {
+                return;
+            }
+            final Pair<GlobalSearchScope, TypeDefinitionRegistry> scopeAndRegistry = pendingSaves.remove(cacheKey);
+            if (scopeAndRegistry == null) {
+                continue;
+            }
+            final String fingerprint = ApplicationManager.getApplication().runReadAction(
+                    (Computable<String>) () -> project.isDisposed() ? null : getContributingFilesFingerprint(scopeAndRegistry.first)
+            );
+            if (fingerprint == null) {
+                // without a fingerprint the persisted schema couldn't be verified on the next restore, so wait for indexing or the documents to be saved
+                pendingSaves.putIfAbsent(cacheKey, scopeAndRegistry);
+                retry = true;
+                continue;
+            }
+            final String content = FINGERPRINT_PREFIX + fingerprint + "\n" + printRegistry(scopeAndRegistry.second);
+            final String contentHash = getContentHash(content);
+            if (contentHash.equals(cacheKeyToSavedHash.get(cacheKey))) {
+                // the persisted schema is still up to date
+                continue;
+            }
+            try {
+                FileUtil.writeToFile(getCacheFile(cacheKey), content);
+                cacheKeyToSavedHash.put(cacheKey, contentHash);
+            } catch (IOException e) {
+                LOG.warn("Unable to persist GraphQL schema", e);
+            }
+        }
+        if (retry && !project.isDisposed()) {
+            scheduleSave();
+        }
+    }
+
+    private File getCacheFile(String cacheKey) {
+        return new File(cacheDir, cacheKey + ".graphql");
+    }
+
+    private static String getContentHash(String content) {
+        return Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+
+    private static String printRegistry(TypeDefinitionRegistry registry) {
+        final List<Node> definitions = Lists.newArrayList();
+        registry.schemaDefinition().ifPresent(definitions::add);
+        definitions.addAll(registry.getDirectiveDefinitions().values());
+        for (ScalarTypeDefinition scalarTypeDefinition : registry.scalars().values()) {
+            if (!ScalarInfo.isGraphqlSpecifiedScalar(scalarTypeDefinition.getName())) {
+                definitions.add(scalarTypeDefinition);
+            }
+        }
+        definitions.addAll(registry.types().values());
+        addExtensions(definitions, registry.objectTypeExtensions().values());
+        addExtensions(definitions, registry.interfaceTypeExtensions().values());
+        addExtensions(definitions, registry.unionTypeExtensions().values());
+        addExtensions(definitions, registry.enumTypeExtensions().values());
+        addExtensions(definitions, registry.scalarTypeExtensions().values());
+        addExtensions(definitions, registry.inputObjectTypeExtensions().values());
+
+        final StringBuilder sdl = new StringBuilder();
+        for (Node definition : definitions) {
+            sdl.append(AstPrinter.printAst(definition)).append("\n\n");
+        }
+        return sdl.toString();
+    }
+
+    private static void addExtensions(List<Node> definitions, Collection<? extends List<? extends Node>> extensions) {
+        for (List<? extends Node> typeExtensions : extensions) {
+            definitions.addAll(typeExtensions);
+        }
+    }
+}
@@ -15,17 +15,24 @@ import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLConfigManage
 import com.intellij.lang.jsgraphql.psi.GraphQLFile;
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLOperationDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLPsiUtil;
 import com.intellij.lang.jsgraphql.psi.GraphQLTemplateDefinition;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.PsiTreeChangeEventImpl;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.messages.Topic;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -51,6 +58,8 @@ public class GraphQLSchemaChangeListener {
 
     private AtomicInteger schemaVersion = new AtomicInteger(0);
 
+    private final SimpleModificationTracker graphQLModificationTracker = new SimpleModificationTracker();
+
     public GraphQLSchemaChangeListener(Project project) {
         myProject = project;
         psiManager = PsiManager.getInstance(myProject);
@@ -61,22 +70,37 @@ public class GraphQLSchemaChangeListener {
                     psiManager.removePsiTreeChangeListener(listener);
                     return;
                 }
+                if (isGraphQLFileAddedOrRemoved(event)) {
+                    // added, removed and moved files can affect any schema, including scopes a moved file no longer belongs to
+                    signalSchemaChanged();
+                }
                 if (event.getFile() instanceof GraphQLFile) {
-                    if (affectsGraphQLSchema(event)) {
+                    // operations and fragments don't affect the schema, but can be the target of references
+                    graphQLModificationTracker.incModificationCount();
+                    if (isFileMoveOrRename(event)) {
+                        // renamed and moves are likely to affect schema blobs etc., including scopes the file no longer belongs to
                         signalSchemaChanged();
+                    } else if (affectsGraphQLSchema(event)) {
+                        signalSchemaChanged(event.getFile());
                     }
                 }
                 if (event.getFile() instanceof JSGraphQLEndpointFile) {
                     // always consider the schema changed when editing an endpoint file
                     signalSchemaChanged();
                 }
+                boolean injectionChanged = false;
                 if (event.getParent() instanceof PsiLanguageInjectionHost) {
                     GraphQLInjectionSearchHelper graphQLInjectionSearchHelper = ServiceManager.getService(GraphQLInjectionSearchHelper.class);
                     if (graphQLInjectionSearchHelper != null && graphQLInjectionSearchHelper.isJSGraphQLLanguageInjectionTarget(event.getParent())) {
                         // change in injection target
-                        signalSchemaChanged();
+                        injectionChanged = true;
+                        signalSchemaChanged(event.getParent().getContainingFile());
                     }
                 }
+                if (!injectionChanged && isTypeSystemInjectionHostChanged(event)) {
+                    // edits around injected type system definitions move them, which changes their source locations
+                    signalSchemaChanged(event.getFile());
+                }
                 if (event.getFile() instanceof JsonFile) {
                     boolean introspectionJsonUpdated = false;
                     if (event.getFile().getUserData(GraphQLSchemaKeys.GRAPHQL_INTROSPECTION_JSON_TO_SDL) != null) {
@@ -88,7 +112,7 @@ public class GraphQLSchemaChangeListener {
                         }
                     }
                     if(introspectionJsonUpdated) {
-                        signalSchemaChanged();
+                        signalSchemaChanged(event.getFile());
                     }
                 }
             }
@@ -136,9 +160,79 @@ public class GraphQLSchemaChangeListener {
         connection.subscribe(GraphQLConfigManager.TOPIC, this::signalSchemaChanged);
     }
 
+    /**
+     * Signals that all schemas should be considered changed
+     */
     private void signalSchemaChanged() {
+        signalSchemaChanged((Collection<VirtualFile>) null);
+    }
+
+    /**
+     * Signals that the schemas which include the specified file should be considered changed
+     */
+    private void signalSchemaChanged(@Nullable PsiFile changedFile) {
+        final VirtualFile virtualFile = GraphQLPsiUtil.getVirtualFile(changedFile);
+        if (virtualFile != null) {
+            signalSchemaChanged(Collections.singletonList(virtualFile));
+        } else {
+            // not backed by a file we can map to schema scopes
+            signalSchemaChanged();
+        }
+    }
+
+    private void signalSchemaChanged(@Nullable Collection<VirtualFile> changedFiles) {
+        graphQLModificationTracker.incModificationCount();
         final int nextVersion = this.schemaVersion.incrementAndGet();
-        myProject.getMessageBus().syncPublisher(GraphQLSchemaChangeListener.TOPIC).onGraphQLSchemaChanged(nextVersion);
+        myProject.getMessageBus().syncPublisher(GraphQLSchemaChangeListener.TOPIC).onGraphQLSchemaChanged(nextVersion, changedFiles);
+    }
+
+    /**
+     * Gets a tracker that changes on edits to GraphQL and GraphQL Endpoint files, GraphQL injections, introspection JSON files
+     * and GraphQL config files, but not on edits to other files in the project
+     */
+    public ModificationTracker getGraphQLModificationTracker() {
+        return graphQLModificationTracker;
+    }
+
+    /**
+     * Evaluates whether a schema scope is affected by a schema change event
+     *
+     * @param schemaScope  the scope that limits the schema definitions, e.g. as returned by {@link com.intellij.lang.jsgraphql.ide.project.GraphQLPsiSearchHelper#getSchemaScope(PsiElement)}
+     * @param changedFiles the files that changed, or <code>null</code> if all schemas are considered changed
+     * @return true if the schema of the scope should be considered changed
+     */
+    public static boolean isSchemaScopeAffected(@NotNull GlobalSearchScope schemaScope, @Nullable Collection<VirtualFile> changedFiles) {
+        if (changedFiles == null) {
+            return true;
+        }
+        for (VirtualFile changedFile : changedFiles) {
+            if (schemaScope.contains(changedFile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isGraphQLFileAddedOrRemoved(PsiTreeChangeEvent event) {
+        // events for added, removed and moved files have the directory as parent and no file
+        for (PsiElement element : Lists.newArrayList(event.getChild(), event.getOldChild(), event.getNewChild())) {
+            if (element instanceof GraphQLFile || element instanceof JSGraphQLEndpointFile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTypeSystemInjectionHostChanged(PsiTreeChangeEvent event) {
+        if (event.getFile() == null || event.getFile() instanceof GraphQLFile) {
+            return false;
+        }
+        final VirtualFile virtualFile = event.getFile().getVirtualFile();
+        return virtualFile != null && Boolean.TRUE.equals(virtualFile.getUserData(GraphQLSchemaKeys.IS_GRAPHQL_TYPE_SYSTEM_INJECTION_HOST));
+    }
+
+    private boolean isFileMoveOrRename(PsiTreeChangeEvent event) {
+        return PsiTreeChangeEvent.PROP_FILE_NAME.equals(event.getPropertyName()) || PsiTreeChangeEvent.PROP_DIRECTORY_NAME.equals(event.getPropertyName());
     }
 
     /**
@@ -148,10 +242,6 @@ public class GraphQLSchemaChangeListener {
      * @return true if the change can affect the declared schema
      */
     private boolean affectsGraphQLSchema(PsiTreeChangeEvent event) {
-        if (PsiTreeChangeEvent.PROP_FILE_NAME.equals(event.getPropertyName()) || PsiTreeChangeEvent.PROP_DIRECTORY_NAME.equals(event.getPropertyName())) {
-            // renamed and moves are likely to affect schema blobs etc.
-            return true;
-        }
         final List<PsiElement> elements = Lists.newArrayList(event.getParent(), event.getChild(), event.getNewChild(), event.getOldChild());
         for (PsiElement element : elements) {
             if (element == null) {
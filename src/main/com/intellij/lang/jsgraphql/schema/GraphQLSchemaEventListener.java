@@ -7,8 +7,10 @@
  */
 package com.intellij.lang.jsgraphql.schema;
 
+import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.EventListener;
 
 /**
@@ -20,4 +22,15 @@ public interface GraphQLSchemaEventListener extends EventListener {
      * One or more GraphQL schema changes are likely based on changed to the PSI trees
      */
     void onGraphQLSchemaChanged(@Nullable Integer schemaVersion);
+
+    /**
+     * One or more GraphQL schema changes are likely based on changes to the specified files.
+     * Listeners that cache per schema scope can override this method to only invalidate the scopes that include the changed files.
+     *
+     * @param changedFiles the changed files, or <code>null</code> if all schemas should be considered changed, e.g. after a configuration change
+     * @see GraphQLSchemaChangeListener#isSchemaScopeAffected
+     */
+    default void onGraphQLSchemaChanged(@Nullable Integer schemaVersion, @Nullable Collection<VirtualFile> changedFiles) {
+        onGraphQLSchemaChanged(schemaVersion);
+    }
 }
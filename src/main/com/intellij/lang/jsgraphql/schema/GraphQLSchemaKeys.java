@@ -18,6 +18,11 @@ public class GraphQLSchemaKeys {
      */
     public static final Key<Boolean> IS_GRAPHQL_INTROSPECTION_JSON = Key.create("JSGraphQL.IsIntrospectionJSON");
 
+    /**
+     * Set on the Virtual File that hosts GraphQL injections with type system definitions
+     */
+    public static final Key<Boolean> IS_GRAPHQL_TYPE_SYSTEM_INJECTION_HOST = Key.create("JSGraphQL.IsTypeSystemInjectionHost");
+
     /**
      * Set on a JSON introspection file (PSI and Virtual) to get the derived GraphQL SDL file
      */
@@ -20,11 +20,32 @@ public class GraphQLSchemaWithErrors {
     private final GraphQLSchema schema;
     private final List<GraphQLException> exceptions;
     private final TypeDefinitionRegistryWithErrors registry;
+    private final boolean stale;
 
     public GraphQLSchemaWithErrors(GraphQLSchema schema, List<GraphQLException> errros, TypeDefinitionRegistryWithErrors registry) {
+        this(schema, errros, registry, false);
+    }
+
+    private GraphQLSchemaWithErrors(GraphQLSchema schema, List<GraphQLException> errros, TypeDefinitionRegistryWithErrors registry, boolean stale) {
         this.schema = schema;
         this.exceptions = errros;
         this.registry = registry;
+        this.stale = stale;
+    }
+
+    /**
+     * Creates a copy of this schema which is flagged as stale, i.e. one or more of the files that declare the schema
+     * have changed since it was built, and a rebuilt schema is pending.
+     */
+    public GraphQLSchemaWithErrors asStale() {
+        return new GraphQLSchemaWithErrors(schema, exceptions, registry, true);
+    }
+
+    /**
+     * Gets whether the schema no longer reflects the latest changes to the files that declare it
+     */
+    public boolean isStale() {
+        return stale;
     }
 
     public GraphQLSchema getSchema() {
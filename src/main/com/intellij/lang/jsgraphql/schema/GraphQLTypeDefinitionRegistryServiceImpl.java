@@ -9,10 +9,27 @@ package com.intellij.lang.jsgraphql.schema;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.intellij.lang.jsgraphql.psi.GraphQLPsiUtil;
+import com.google.common.collect.Sets;
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.lang.jsgraphql.GraphQLSettings;
+import com.intellij.lang.jsgraphql.ide.project.GraphQLPsiSearchHelper;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.IndexNotReadyException;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Alarm;
 import graphql.Directives;
 import graphql.GraphQLException;
 import graphql.language.*;
@@ -20,11 +37,13 @@ import graphql.schema.*;
 import graphql.schema.idl.TypeDefinitionRegistry;
 import graphql.schema.idl.UnExecutableSchemaGenerator;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 public class GraphQLTypeDefinitionRegistryServiceImpl implements GraphQLTypeDefinitionRegistryService {
 
@@ -32,8 +51,27 @@ public class GraphQLTypeDefinitionRegistryServiceImpl implements GraphQLTypeDefi
 
     private Project project;
 
-    private final Map<String, TypeDefinitionRegistryWithErrors> fileNameToRegistry = Maps.newConcurrentMap();
-    private final Map<String, GraphQLSchemaWithErrors> fileNameToSchema = Maps.newConcurrentMap();
+    // registries and schemas are shared by all files in the same schema scope
+    private final Map<GlobalSearchScope, TypeDefinitionRegistryWithErrors> schemaScopeToRegistry = Maps.newConcurrentMap();
+    private final Map<GlobalSearchScope, GraphQLSchemaWithErrors> schemaScopeToSchema = Maps.newConcurrentMap();
+
+    /**
+     * Delay after the last schema change before stale schemas are rebuilt in the background
+     */
+    private static final int SCHEMA_BUILD_DELAY_MILLIS = 300;
+
+    private final Map<GlobalSearchScope, PsiFile> pendingSchemaBuilds = Maps.newConcurrentMap();
+    private final Alarm schemaBuildAlarm;
+
+    // canceled when the project is disposed, which cancels the background builds that are in progress
+    private final ProgressIndicator projectProgressIndicator = new EmptyProgressIndicator();
+
+    private final SimpleModificationTracker schemaModificationTracker = new SimpleModificationTracker();
+
+    private final GraphQLPersistentSchemaCache persistentSchemaCache;
+
+    // schema scopes whose schema was restored from disk and is pending verification against the project files
+    private final Set<GlobalSearchScope> restoredSchemaScopes = Sets.newConcurrentHashSet();
 
     public static GraphQLTypeDefinitionRegistryServiceImpl getService(@NotNull Project project) {
         return ServiceManager.getService(project, GraphQLTypeDefinitionRegistryServiceImpl.class);
@@ -41,22 +79,68 @@ public class GraphQLTypeDefinitionRegistryServiceImpl implements GraphQLTypeDefi
 
     public GraphQLTypeDefinitionRegistryServiceImpl(Project project) {
         this.project = project;
+        this.schemaBuildAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, project);
+        Disposer.register(project, projectProgressIndicator::cancel);
+        this.persistentSchemaCache = new GraphQLPersistentSchemaCache(project);
         project.getMessageBus().connect().subscribe(GraphQLSchemaChangeListener.TOPIC, new GraphQLSchemaEventListener() {
             @Override
             public void onGraphQLSchemaChanged(Integer schemaVersion) {
                 // clear the cache on each PSI change
-                fileNameToRegistry.clear();
-                fileNameToSchema.clear();
+                schemaModificationTracker.incModificationCount();
+                schemaScopeToRegistry.clear();
+                schemaScopeToSchema.clear();
+                pendingSchemaBuilds.clear();
+                restoredSchemaScopes.clear();
+                persistentSchemaCache.discardPendingSaves(null);
+            }
+
+            @Override
+            public void onGraphQLSchemaChanged(Integer schemaVersion, Collection<VirtualFile> changedFiles) {
+                if (changedFiles == null) {
+                    onGraphQLSchemaChanged(schemaVersion);
+                    return;
+                }
+                // only clear the schema scopes that contain the changed files
+                boolean schemaRemoved = false;
+                final boolean backgroundSchemaBuild = GraphQLSettings.getSettings(project).isEnableBackgroundSchemaBuild();
+                final Set<GlobalSearchScope> schemaScopes = Sets.newHashSet(schemaScopeToRegistry.keySet());
+                schemaScopes.addAll(schemaScopeToSchema.keySet());
+                for (GlobalSearchScope schemaScope : schemaScopes) {
+                    if (GraphQLSchemaChangeListener.isSchemaScopeAffected(schemaScope, changedFiles)) {
+                        schemaScopeToRegistry.remove(schemaScope);
+                        if (backgroundSchemaBuild) {
+                            // flag the schema as stale and keep serving it until it has been rebuilt in the background
+                            schemaScopeToSchema.computeIfPresent(schemaScope, (scope, schemaWithErrors) -> schemaWithErrors.asStale());
+                        } else {
+                            schemaRemoved |= schemaScopeToSchema.remove(schemaScope) != null;
+                            restoredSchemaScopes.remove(schemaScope);
+                        }
+                    }
+                }
+                persistentSchemaCache.discardPendingSaves(changedFiles);
+                if (schemaRemoved) {
+                    // stale schemas that are served until the background build has completed don't change the tracker
+                    schemaModificationTracker.incModificationCount();
+                }
+                if (backgroundSchemaBuild) {
+                    debounceSchemaBuilds();
+                }
             }
         });
 
     }
 
+    /**
+     * Gets a modification tracker which is incremented each time a schema is replaced by a different schema instance, e.g. for caching information derived from the schemas.
+     * Edits that flag a schema as stale don't change the tracker while the stale schema is still being served.
+     */
+    public ModificationTracker getSchemaModificationTracker() {
+        return schemaModificationTracker;
+    }
+
     @Override
-    public TypeDefinitionRegistryWithErrors getRegistryWithErrors(PsiElement psiElement) { ;
-        return fileNameToRegistry.computeIfAbsent(GraphQLPsiUtil.getFileName(psiElement.getContainingFile()), fileName -> {
-            return SchemaIDLTypeDefinitionRegistry.getService(project).getRegistryWithErrors(psiElement);
-        });
+    public TypeDefinitionRegistryWithErrors getRegistryWithErrors(PsiElement psiElement) {
+        return schemaScopeToRegistry.computeIfAbsent(getSchemaScope(psiElement), schemaScope -> SchemaIDLTypeDefinitionRegistry.getService(project).getRegistryWithErrors(psiElement));
     }
 
     @Override
@@ -66,24 +150,138 @@ public class GraphQLTypeDefinitionRegistryServiceImpl implements GraphQLTypeDefi
 
     @Override
     public GraphQLSchemaWithErrors getSchemaWithErrors(PsiElement psiElement) {
-        return fileNameToSchema.computeIfAbsent(GraphQLPsiUtil.getFileName(psiElement.getContainingFile()), fileName -> {
-            final TypeDefinitionRegistryWithErrors registryWithErrors = getRegistryWithErrors(psiElement);
+        final GlobalSearchScope schemaScope = getSchemaScope(psiElement);
+        final GraphQLSchemaWithErrors schemaWithErrors = schemaScopeToSchema.computeIfAbsent(schemaScope, scope -> {
+            final GraphQLSchemaWithErrors restoredSchema = restoreSchemaWithErrors(scope, psiElement);
+            if (restoredSchema != null) {
+                return restoredSchema;
+            }
+            return buildSchemaWithErrors(psiElement);
+        });
+        if (schemaWithErrors.isStale()) {
+            if (restoredSchemaScopes.contains(schemaScope) || GraphQLSettings.getSettings(project).isEnableBackgroundSchemaBuild()) {
+                // keep serving the stale schema until the background build has completed
+                scheduleSchemaBuild(schemaScope, psiElement.getContainingFile());
+            } else {
+                // background builds were disabled while the schema was stale
+                if (schemaScopeToSchema.remove(schemaScope, schemaWithErrors)) {
+                    schemaModificationTracker.incModificationCount();
+                }
+                return getSchemaWithErrors(psiElement);
+            }
+        }
+        return schemaWithErrors;
+    }
+
+    /**
+     * Restores the schema of a schema scope from the persistent cache if the schema hasn't been built in the current session, e.g. after an IDE restart.
+     * The restored schema is flagged as stale, and is verified by building the schema from the project files in the background.
+     * Only type definitions are persisted, so the restored schema reports no errors until it has been replaced by the verified schema.
+     */
+    @Nullable
+    private GraphQLSchemaWithErrors restoreSchemaWithErrors(GlobalSearchScope schemaScope, PsiElement psiElement) {
+        final String cacheKey = persistentSchemaCache.getCacheKey(psiElement);
+        if (cacheKey == null) {
+            return null;
+        }
+        final TypeDefinitionRegistry registry = persistentSchemaCache.restore(cacheKey, schemaScope);
+        if (registry == null) {
+            return null;
+        }
+        restoredSchemaScopes.add(schemaScope);
+        return createSchemaWithErrors(new TypeDefinitionRegistryWithErrors(registry, Collections.emptyList(), true)).asStale();
+    }
+
+    private GraphQLSchemaWithErrors buildSchemaWithErrors(PsiElement psiElement) {
+        final TypeDefinitionRegistryWithErrors registryWithErrors = getRegistryWithErrors(psiElement);
+        final String cacheKey = persistentSchemaCache.getCacheKey(psiElement);
+        if (cacheKey != null) {
+            persistentSchemaCache.save(cacheKey, getSchemaScope(psiElement), registryWithErrors.getRegistry());
+        }
+        return createSchemaWithErrors(registryWithErrors);
+    }
+
+    private GraphQLSchemaWithErrors createSchemaWithErrors(TypeDefinitionRegistryWithErrors registryWithErrors) {
+        try {
+            final GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registryWithErrors.getRegistry());
+            for (GraphQLDirective directive : schema.getDirectives()) {
+                if (Directives.DeferDirective.getName().equals(directive.getName()) && directive != Directives.DeferDirective) {
+                    // more than one @defer (one was declared in addition to the built-in one from graphql-java)
+                    removeBuiltInDirective(schema, Directives.DeferDirective);
+                    break;
+                }
+            }
+            return new GraphQLSchemaWithErrors(schema, Collections.emptyList(), registryWithErrors);
+        } catch (GraphQLException e) {
+            return new GraphQLSchemaWithErrors(EMPTY_SCHEMA, Lists.newArrayList(e), registryWithErrors);
+        } catch (Exception e) {
+            return new GraphQLSchemaWithErrors(EMPTY_SCHEMA, Lists.newArrayList(new GraphQLException(e)), registryWithErrors);
+        }
+    }
+
+    /**
+     * Queues a background build of the stale schema of the specified schema scope, using a file in the scope to build it. The build runs once edits have paused for {@link #SCHEMA_BUILD_DELAY_MILLIS}.
+     */
+    private void scheduleSchemaBuild(GlobalSearchScope schemaScope, PsiFile psiFile) {
+        pendingSchemaBuilds.putIfAbsent(schemaScope, psiFile);
+        if (!schemaBuildAlarm.isDisposed() && schemaBuildAlarm.isEmpty()) {
+            schemaBuildAlarm.addRequest(this::buildPendingSchemas, SCHEMA_BUILD_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Postpones the pending background builds while edits are being made
+     */
+    private void debounceSchemaBuilds() {
+        if (!schemaBuildAlarm.isDisposed()) {
+            schemaBuildAlarm.cancelAllRequests();
+            schemaBuildAlarm.addRequest(this::buildPendingSchemas, SCHEMA_BUILD_DELAY_MILLIS);
+        }
+    }
+
+    private void buildPendingSchemas() {
+        boolean schemaRebuilt = false;
+        for (GlobalSearchScope schemaScope : Lists.newArrayList(pendingSchemaBuilds.keySet())) {
+            if (project.isDisposed()) {
+                return;
+            }
+            final PsiFile psiFile = pendingSchemaBuilds.remove(schemaScope);
+            final GraphQLSchemaWithErrors staleSchema = schemaScopeToSchema.get(schemaScope);
+            if (psiFile == null || staleSchema == null || !staleSchema.isStale()) {
+                continue;
+            }
+            final Ref<GraphQLSchemaWithErrors> schemaRef = Ref.create();
+            boolean completed;
             try {
-                final GraphQLSchema schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registryWithErrors.getRegistry());
-                for (GraphQLDirective directive : schema.getDirectives()) {
-                    if (Directives.DeferDirective.getName().equals(directive.getName()) && directive != Directives.DeferDirective) {
-                        // more than one @defer (one was declared in addition to the built-in one from graphql-java)
-                        removeBuiltInDirective(schema, Directives.DeferDirective);
-                        break;
+                // yield to write actions such that typing isn't blocked by the build
+                completed = ProgressManager.getInstance().runInReadActionWithWriteActionPriority(() -> {
+                    if (psiFile.isValid()) {
+                        schemaRef.set(buildSchemaWithErrors(psiFile));
                     }
-                }
-                return new GraphQLSchemaWithErrors(schema, Collections.emptyList(), registryWithErrors);
-            } catch (GraphQLException e) {
-                return new GraphQLSchemaWithErrors(EMPTY_SCHEMA, Lists.newArrayList(e), registryWithErrors);
-            } catch (Exception e) {
-                return new GraphQLSchemaWithErrors(EMPTY_SCHEMA, Lists.newArrayList(new GraphQLException(e)), registryWithErrors);
+                }, new SensitiveProgressWrapper(projectProgressIndicator));
+            } catch (IndexNotReadyException e) {
+                completed = false;
             }
-        });
+            if (!completed) {
+                // retry once the edits or indexing have completed
+                pendingSchemaBuilds.putIfAbsent(schemaScope, psiFile);
+                debounceSchemaBuilds();
+                break;
+            }
+            // only replace the exact stale schema, since a newer change may have been made while building
+            if (schemaRef.get() != null && schemaScopeToSchema.replace(schemaScope, staleSchema, schemaRef.get())) {
+                restoredSchemaScopes.remove(schemaScope);
+                schemaRebuilt = true;
+            }
+        }
+        if (schemaRebuilt) {
+            schemaModificationTracker.incModificationCount();
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (!project.isDisposed()) {
+                    DaemonCodeAnalyzer.getInstance(project).restart();
+                }
+            }, project.getDisposed());
+        }
     }
 
     @Override
@@ -91,6 +289,13 @@ public class GraphQLTypeDefinitionRegistryServiceImpl implements GraphQLTypeDefi
         return getSchemaWithErrors(psiElement).getSchema();
     }
 
+    /**
+     * Gets the schema scope of an element, which is the key of the registry and schema that are shared by the files in the scope
+     */
+    private GlobalSearchScope getSchemaScope(PsiElement psiElement) {
+        return GraphQLPsiSearchHelper.getService(project).getSchemaScope(psiElement);
+    }
+
     public Description getTypeDefinitionDescription(TypeDefinition typeDefinition) {
         Description description = null;
         if (typeDefinition instanceof ObjectTypeDefinition) {
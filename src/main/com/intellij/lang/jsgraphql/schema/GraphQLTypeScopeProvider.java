@@ -7,8 +7,15 @@
  */
 package com.intellij.lang.jsgraphql.schema;
 
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import graphql.schema.GraphQLType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
 
 public interface GraphQLTypeScopeProvider extends PsiElement {
 
@@ -18,4 +25,18 @@ public interface GraphQLTypeScopeProvider extends PsiElement {
      */
     GraphQLType getTypeScope();
 
+    Key<CachedValue<GraphQLType>> TYPE_SCOPE_KEY = Key.create("JSGraphQL.TypeScope");
+
+    /**
+     * Caches the type scope of a provider until the schema or the file containing the provider changes.
+     * Providers resolve their type scope from their parents, so caching ensures each parent is only resolved once.
+     */
+    static GraphQLType getCachedTypeScope(@NotNull GraphQLTypeScopeProvider typeScopeProvider, @NotNull Supplier<GraphQLType> typeScopeSupplier) {
+        return CachedValuesManager.getManager(typeScopeProvider.getProject()).getCachedValue(typeScopeProvider, TYPE_SCOPE_KEY, () -> CachedValueProvider.Result.create(
+                typeScopeSupplier.get(),
+                GraphQLTypeDefinitionRegistryServiceImpl.getService(typeScopeProvider.getProject()).getSchemaModificationTracker(),
+                typeScopeProvider.getContainingFile()
+        ), false);
+    }
+
 }
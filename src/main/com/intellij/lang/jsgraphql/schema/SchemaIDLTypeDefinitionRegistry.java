@@ -7,24 +7,34 @@
  */
 package com.intellij.lang.jsgraphql.schema;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.json.JsonFileType;
 import com.intellij.lang.jsgraphql.GraphQLFileType;
 import com.intellij.lang.jsgraphql.GraphQLLanguage;
+import com.intellij.lang.jsgraphql.GraphQLSettings;
 import com.intellij.lang.jsgraphql.endpoint.ide.project.JSGraphQLEndpointNamedTypeRegistry;
 import com.intellij.lang.jsgraphql.ide.editor.GraphQLIntrospectionHelper;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLInjectionSearchHelper;
 import com.intellij.lang.jsgraphql.ide.project.GraphQLPsiSearchHelper;
 import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLConfigManager;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLTypeSystemDefinitionIndex;
 import com.intellij.lang.jsgraphql.psi.GraphQLDirective;
 import com.intellij.lang.jsgraphql.psi.GraphQLFile;
 import com.intellij.lang.jsgraphql.psi.GraphQLPsiUtil;
 import com.intellij.lang.jsgraphql.psi.GraphQLTypeSystemDefinition;
+import com.intellij.lang.jsgraphql.utils.GraphQLPsiToLanguage;
 import com.intellij.lang.jsgraphql.utils.GraphQLUtil;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -32,6 +42,9 @@ import com.intellij.psi.*;
 import com.intellij.psi.search.FileTypeIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.text.CharSequenceReader;
 import graphql.GraphQLException;
 import graphql.InvalidSyntaxError;
 import graphql.language.Document;
@@ -43,16 +56,29 @@ import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Token;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
 
 import static com.intellij.lang.jsgraphql.schema.GraphQLSchemaKeys.*;
 
 public class SchemaIDLTypeDefinitionRegistry {
 
+    private static final Logger LOG = Logger.getInstance(SchemaIDLTypeDefinitionRegistry.class);
+
+    private static final int INTROSPECTION_FILE_LOCK_STRIPES = 64;
+
     private final GraphQLPsiSearchHelper graphQLPsiSearchHelper;
     private final Project project;
     private final GlobalSearchScope scope;
@@ -64,6 +90,14 @@ public class SchemaIDLTypeDefinitionRegistry {
 
     private final Map<GlobalSearchScope, TypeDefinitionRegistryWithErrors> scopeToRegistry = Maps.newConcurrentMap();
 
+    // parsed type system definitions per file, which survive schema changes such that only changed files are re-parsed
+    private final Map<String, ParsedFile> fileKeyToParsedFile = Maps.newConcurrentMap();
+    private final AtomicInteger parsedDefinitionCount = new AtomicInteger();
+
+    // SDL derived from introspection JSON files, which is only converted again once the JSON content changes
+    private final Map<VirtualFile, IntrospectionSDL> introspectionFileToSDL = Maps.newConcurrentMap();
+    private final Striped<Lock> introspectionFileLocks = Striped.lazyWeakLock(INTROSPECTION_FILE_LOCK_STRIPES);
+
     public static SchemaIDLTypeDefinitionRegistry getService(@NotNull Project project) {
         return ServiceManager.getService(project, SchemaIDLTypeDefinitionRegistry.class);
     }
@@ -82,6 +116,12 @@ public class SchemaIDLTypeDefinitionRegistry {
             public void onGraphQLSchemaChanged(Integer schemaVersion) {
                 scopeToRegistry.clear();
             }
+
+            @Override
+            public void onGraphQLSchemaChanged(Integer schemaVersion, Collection<VirtualFile> changedFiles) {
+                // only drop the registries of schema scopes that include the changed files
+                scopeToRegistry.keySet().removeIf(schemaScope -> GraphQLSchemaChangeListener.isSchemaScopeAffected(schemaScope, changedFiles));
+            }
         });
     }
 
@@ -92,132 +132,51 @@ public class SchemaIDLTypeDefinitionRegistry {
 
         return scopeToRegistry.computeIfAbsent(schemaScope, s -> {
 
+            // release parsed definitions of files that have since been deleted or replaced
+            fileKeyToParsedFile.values().removeIf(ParsedFile::isDisposed);
+            introspectionFileToSDL.keySet().removeIf(file -> !file.isValid());
+
             final TypeDefinitionRegistry typeRegistry = new TypeDefinitionRegistry();
             final List<GraphQLException> errors = Lists.newArrayList();
 
-            final Ref<Boolean> processedGraphQL = Ref.create(false);
+            final AtomicBoolean processedGraphQL = new AtomicBoolean(false);
 
-            Consumer<PsiFile> processFile = psiFile -> {
-                if (!(psiFile instanceof GraphQLFile)) {
-                    return;
-                }
-                processedGraphQL.set(true);
-                final GraphQLTypeSystemDefinition[] typeSystemDefinitions = PsiTreeUtil.getChildrenOfType(psiFile, GraphQLTypeSystemDefinition.class);
-                if (typeSystemDefinitions != null) {
+            // the GraphQL and JSON introspection files that contribute type definitions, in the order their definitions are merged
+            final List<PsiFile> schemaFiles = Lists.newArrayList();
 
-                    // for injected GraphQL we need to take the location of the injection into account, so count the lines plus first-line column delta
-                    int injectedFirstLineColumnDelta = 0;
-                    int injectionLineDelta = 0;
+            Consumer<PsiFile> processFile = psiFile -> {
+                if (psiFile instanceof GraphQLFile) {
+                    processedGraphQL.set(true);
+                    schemaFiles.add(psiFile);
                     if (psiFile.getContext() != null) {
-                        int endOffset = psiFile.getContext().getTextOffset();
-                        final PsiFile fileWithInjection = psiFile.getContext().getContainingFile();
-                        final CharSequence injectionBuffer = fileWithInjection.getViewProvider().getContents();
-                        for (int i = 0; i < endOffset; i++) {
-                            if (injectionBuffer.charAt(i) == '\n') {
-                                injectedFirstLineColumnDelta = 0;
-                                injectionLineDelta++;
-                            } else {
-                                injectedFirstLineColumnDelta++;
-                            }
-                        }
-                    }
-
-                    // count out the new lines to be able to map from text offset in the buffer to line number (1-based
-
-                    final String fileBuffer = psiFile.getText();
-                    final Map<Integer, Integer> offsetToLine = Maps.newHashMap();
-                    int currentLine = 1; // GraphQL antlr parser is 1-based for line numbers
-                    for(int i = 0; i < fileBuffer.length(); i++) {
-                        if(fileBuffer.charAt(i) == '\n') {
-                            currentLine++;
-                            offsetToLine.put(i + 1, currentLine);
-                        }
-                    }
-
-                    for (GraphQLTypeSystemDefinition typeSystemDefinition : typeSystemDefinitions) {
-
-                        // parse each definition separately since graphql-java has no error recovery, and it's likely there's errors in the editor
-
-                        // track where the definition starts, but also include white space and comments leading up to the definition
-                        // since it can contain docs and affects line/col
-                        int bufferStart = typeSystemDefinition.getTextOffset();
-                        int prefixStart = bufferStart;
-
-                        PsiElement prevSibling = typeSystemDefinition.getPrevSibling();
-                        while(prevSibling instanceof PsiComment || prevSibling instanceof PsiWhiteSpace) {
-                            prefixStart = prevSibling.getTextOffset();
-                            prevSibling = prevSibling.getPrevSibling();
-                        }
-
-                        String definitionPrefix;
-                        if(prefixStart < bufferStart) {
-                            definitionPrefix = fileBuffer.substring(prefixStart, bufferStart);
-                        } else {
-                            definitionPrefix = "";
-                        }
-
-                        Ref<Integer> lineDelta = new Ref<>(0);
-                        for (int i = prefixStart; i > 0; i--) {
-                            Integer lineAtOffset = offsetToLine.get(i);
-                            if(lineAtOffset != null) {
-                                lineDelta.set(lineAtOffset - 1);
-                                break;
-                            }
-                        }
-
-                        try {
-                            String definitionSourceText = typeSystemDefinition.getText();
-                            if (graphQLInjectionSearchHelper != null && psiFile.getContext() instanceof PsiLanguageInjectionHost) {
-                                definitionSourceText = graphQLInjectionSearchHelper.applyInjectionDelimitingQuotesEscape(definitionSourceText);
-                            }
-                            final StringBuffer typeSystemDefinitionBuffer = new StringBuffer(definitionPrefix.length() + definitionSourceText.length());
-                            typeSystemDefinitionBuffer.append(definitionPrefix).append(definitionSourceText);
-                            // if there are syntax errors on optional elements, replace them with whitespace
-                            PsiTreeUtil.findChildrenOfType(typeSystemDefinition, PsiErrorElement.class).forEach(error -> {
-                                final PsiElement parent = error.getParent();
-                                if(parent instanceof GraphQLDirective) {
-                                    // happens when typing '@' and the name of the directive is still missing
-                                    final int delta = typeSystemDefinition.getTextRange().getStartOffset();
-                                    final TextRange parentRange = parent.getTextRange();
-                                    final TextRange textRange = new TextRange(parentRange.getStartOffset() - delta, parentRange.getEndOffset() - delta);
-                                    if(!textRange.isEmpty()) {
-                                        typeSystemDefinitionBuffer.replace(textRange.getStartOffset(), textRange.getEndOffset(), StringUtil.repeat(" ", textRange.getLength()));
-                                    }
-                                }
-                            });
-
-                            // adjust line numbers in source locations if there's a line delta compared to the original file buffer
-                            final Document document = GraphQLUtil.parseDocument(typeSystemDefinitionBuffer.toString(), GraphQLPsiUtil.getFileName(psiFile), lineDelta.get() + injectionLineDelta, injectedFirstLineColumnDelta);
-
-                            typeRegistry.merge(new SchemaParser().buildRegistry(document));
-                        } catch (GraphQLException | CancellationException e) {
-                            if(e instanceof GraphQLException) {
-                                errors.add((GraphQLException) e);
-                            } else if (e instanceof CancellationException) {
-                                // CancellationException is a parse error, but we don't always have a valid program as the user types, so that's expected
-                                if(e.getCause() instanceof RecognitionException) {
-                                    final Token offendingToken = ((RecognitionException) e.getCause()).getOffendingToken();
-                                    if(offendingToken != null) {
-                                        final List<SourceLocation> sourceLocation = Collections.singletonList(
-                                                GraphQLUtil.createSourceLocationFromDelta(offendingToken, lineDelta.get() + injectionLineDelta, injectedFirstLineColumnDelta)
-                                        );
-                                        errors.add(new SchemaProblem(Collections.singletonList(new InvalidSyntaxError(sourceLocation, "Unexpected token: \"" + offendingToken.getText() + "\""))));
-                                    }
-                                }
-                            }
+                        // edits anywhere in the host file can move the injected definitions, so let the change listener know
+                        final VirtualFile hostFile = GraphQLPsiUtil.getVirtualFile(psiFile);
+                        if (hostFile != null) {
+                            hostFile.putUserData(IS_GRAPHQL_TYPE_SYSTEM_INJECTION_HOST, true);
                         }
                     }
                 }
             };
 
             // GraphQL files
+            final GlobalSearchScope graphQLFilesScope = scope.intersectWith(schemaScope);
+            final Set<VirtualFile> typeSystemFiles = Sets.newHashSet(FileBasedIndex.getInstance().getContainingFiles(
+                    GraphQLTypeSystemDefinitionIndex.NAME,
+                    GraphQLTypeSystemDefinitionIndex.HAS_TYPE_SYSTEM_DEFINITIONS,
+                    graphQLFilesScope
+            ));
             FileTypeIndex.processFiles(GraphQLFileType.INSTANCE, file -> {
+                if (!typeSystemFiles.contains(file)) {
+                    // only operations and fragments, so no need to load the PSI
+                    processedGraphQL.set(true);
+                    return true;
+                }
                 final PsiFile psiFile = psiManager.findFile(file);
                 if (psiFile != null) {
                     processFile.accept(psiFile);
                 }
                 return true;
-            }, scope.intersectWith(schemaScope));
+            }, graphQLFilesScope);
 
             // JSON GraphQL introspection result files
             if(!graphQLConfigManager.getConfigurationsByPath().isEmpty()) {
@@ -228,42 +187,34 @@ public class SchemaIDLTypeDefinitionRegistry {
                     // considered within scope, so we can just go ahead and try to turn the JSON into GraphQL
                     final PsiFile psiFile = psiManager.findFile(file);
                     if (psiFile != null) {
-                        try {
-                            synchronized (GRAPHQL_INTROSPECTION_JSON_TO_SDL) {
-                                final String introspectionJsonAsGraphQL = GraphQLIntrospectionHelper.getService(project).printIntrospectionJsonAsGraphQL(psiFile.getText());
-                                final GraphQLFile currentSDLPsiFile = psiFile.getUserData(GRAPHQL_INTROSPECTION_JSON_TO_SDL);
-                                if (currentSDLPsiFile != null && currentSDLPsiFile.getText().equals(introspectionJsonAsGraphQL)) {
-                                    // already have a PSI file that matches the introspection SDL
-                                    processFile.accept(currentSDLPsiFile);
-                                } else {
-                                    final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(project);
-                                    final String fileName = file.getPath();
-                                    final GraphQLFile newIntrospectionFile = (GraphQLFile) psiFileFactory.createFileFromText(fileName, GraphQLLanguage.INSTANCE, introspectionJsonAsGraphQL);
-                                    newIntrospectionFile.putUserData(IS_GRAPHQL_INTROSPECTION_SDL, true);
-                                    newIntrospectionFile.putUserData(GRAPHQL_INTROSPECTION_SDL_TO_JSON, psiFile);
-                                    newIntrospectionFile.getVirtualFile().putUserData(IS_GRAPHQL_INTROSPECTION_SDL, true);
-                                    newIntrospectionFile.getVirtualFile().putUserData(GRAPHQL_INTROSPECTION_SDL_TO_JSON, psiFile);
-                                    newIntrospectionFile.getVirtualFile().setWritable(false);
-                                    psiFile.putUserData(GRAPHQL_INTROSPECTION_JSON_TO_SDL, newIntrospectionFile);
-                                    file.putUserData(GRAPHQL_INTROSPECTION_JSON_TO_SDL, newIntrospectionFile);
-                                    processFile.accept(newIntrospectionFile);
-                                }
-                            }
-                        } catch (Exception e) {
-                            final List<SourceLocation> sourceLocation = Collections.singletonList(new SourceLocation(1, 1, GraphQLPsiUtil.getFileName(psiFile)));
-                            errors.add(new SchemaProblem(Collections.singletonList(new InvalidSyntaxError(sourceLocation, e.getMessage()))));
-                        }
+                        // converted to SDL along with the parsing of the other files
+                        schemaFiles.add(psiFile);
                     }
                     return true;
                 }, introspectionScope.intersectWith(schemaScope));
             }
 
-            // Injected GraphQL
-            graphQLPsiSearchHelper.processInjectedGraphQLPsiFiles(scopedElement, schemaScope, processFile);
+            // Injected GraphQL, limited to the injections that contain type system definitions
+            graphQLPsiSearchHelper.processInjectedTypeSystemDefinitionPsiFiles(scopedElement, schemaScope, processFile);
 
             // Built-in that are additions to a default registry which already has the GraphQL spec directives
             graphQLPsiSearchHelper.processAdditionalBuiltInPsiFiles(schemaScope, processFile);
 
+            // merge in a deterministic order, such that the same definitions yield the same registry and errors regardless of parallel parsing
+            final Map<PsiFile, List<ParsedTypeSystemDefinition>> fileToDefinitions = parseSchemaFiles(schemaFiles, processedGraphQL);
+            for (PsiFile schemaFile : schemaFiles) {
+                for (ParsedTypeSystemDefinition parsedDefinition : fileToDefinitions.getOrDefault(schemaFile, Collections.emptyList())) {
+                    errors.addAll(parsedDefinition.errors);
+                    if (parsedDefinition.registry != null) {
+                        try {
+                            typeRegistry.merge(parsedDefinition.registry);
+                        } catch (GraphQLException e) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            }
+
             // Types defined using GraphQL Endpoint Language
             VirtualFile virtualFile = GraphQLPsiUtil.getVirtualFile(scopedElement.getContainingFile());
             if (virtualFile != null && graphQLConfigManager.getEndpointLanguageConfiguration(virtualFile, null) != null) {
@@ -281,4 +232,350 @@ public class SchemaIDLTypeDefinitionRegistry {
         });
 
     }
+
+    /**
+     * Gets the number of type system definitions that have been parsed, which excludes the definitions that were re-used from a previous build
+     */
+    @VisibleForTesting
+    int getParsedDefinitionCount() {
+        return parsedDefinitionCount.get();
+    }
+
+    /**
+     * Parses the type system definitions of the schema files, either one file at a time or, if enabled in the settings, concurrently.
+     * Concurrent parsing runs on the bounded pool of the job launcher, in read actions and under the progress indicator of the caller.
+     */
+    private Map<PsiFile, List<ParsedTypeSystemDefinition>> parseSchemaFiles(List<PsiFile> schemaFiles, AtomicBoolean processedGraphQL) {
+        final Map<PsiFile, List<ParsedTypeSystemDefinition>> fileToDefinitions = Maps.newConcurrentMap();
+        final Processor<PsiFile> parseFile = psiFile -> {
+            fileToDefinitions.put(psiFile, getSchemaFileDefinitions(psiFile, processedGraphQL));
+            return true;
+        };
+        if (schemaFiles.size() > 1 && GraphQLSettings.getSettings(project).isEnableParallelSchemaBuild()) {
+            JobLauncher.getInstance().invokeConcurrentlyUnderProgress(schemaFiles, ProgressManager.getInstance().getProgressIndicator(), parseFile);
+        } else {
+            for (PsiFile schemaFile : schemaFiles) {
+                parseFile.process(schemaFile);
+            }
+        }
+        return fileToDefinitions;
+    }
+
+    private List<ParsedTypeSystemDefinition> getSchemaFileDefinitions(PsiFile psiFile, AtomicBoolean processedGraphQL) {
+        if (psiFile instanceof GraphQLFile) {
+            return getParsedTypeSystemDefinitions(psiFile);
+        }
+        final VirtualFile file = psiFile.getVirtualFile();
+        try {
+            final GraphQLFile introspectionSDLFile;
+            // only conversions of the same file wait on each other, so independent schemas are converted in parallel
+            final Lock introspectionFileLock = introspectionFileLocks.get(file);
+            introspectionFileLock.lock();
+            try {
+                introspectionSDLFile = getIntrospectionSDLFile(psiFile, file);
+            } finally {
+                introspectionFileLock.unlock();
+            }
+            processedGraphQL.set(true);
+            return getParsedTypeSystemDefinitions(introspectionSDLFile);
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (Exception e) {
+            final List<SourceLocation> sourceLocation = Collections.singletonList(new SourceLocation(1, 1, GraphQLPsiUtil.getFileName(psiFile)));
+            final GraphQLException error = new SchemaProblem(Collections.singletonList(new InvalidSyntaxError(sourceLocation, e.getMessage())));
+            return Collections.singletonList(new ParsedTypeSystemDefinition("", 0, 0, null, Collections.singletonList(error)));
+        }
+    }
+
+    /**
+     * Gets the GraphQL SDL file derived from a JSON introspection file. The JSON is only converted again if its content has changed
+     * since the last conversion, based on the modification stamp and, if that has changed, a hash of the content.
+     */
+    private GraphQLFile getIntrospectionSDLFile(PsiFile psiFile, VirtualFile file) throws IOException {
+        final long modificationStamp = psiFile.getModificationStamp();
+        final boolean includeDefaultValues = GraphQLSettings.getSettings(project).isEnableIntrospectionDefaultValues();
+        final CharSequence introspectionJson = psiFile.getViewProvider().getContents();
+
+        final IntrospectionSDL currentSDL = introspectionFileToSDL.get(file);
+        String contentHash = null;
+        if (currentSDL != null && currentSDL.includeDefaultValues == includeDefaultValues) {
+            if (currentSDL.modificationStamp != modificationStamp) {
+                contentHash = getContentHash(introspectionJson);
+            }
+            if (currentSDL.modificationStamp == modificationStamp || currentSDL.contentHash.equals(contentHash)) {
+                // unchanged JSON, e.g. a save or reload that didn't change the content, so keep the SDL file
+                if (currentSDL.modificationStamp != modificationStamp) {
+                    introspectionFileToSDL.put(file, new IntrospectionSDL(currentSDL.sdlFile, modificationStamp, currentSDL.contentHash, includeDefaultValues));
+                }
+                linkIntrospectionFiles(psiFile, file, currentSDL.sdlFile);
+                return currentSDL.sdlFile;
+            }
+        }
+        if (contentHash == null) {
+            contentHash = getContentHash(introspectionJson);
+        }
+
+        final String introspectionJsonAsGraphQL = GraphQLIntrospectionHelper.getService(project).printIntrospectionJsonAsGraphQL(new CharSequenceReader(introspectionJson));
+        final GraphQLFile sdlFile;
+        if (currentSDL != null && currentSDL.sdlFile.isValid() && currentSDL.sdlFile.getText().equals(introspectionJsonAsGraphQL)) {
+            // already have a PSI file that matches the introspection SDL
+            sdlFile = currentSDL.sdlFile;
+        } else {
+            final PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(project);
+            final String fileName = file.getPath();
+            sdlFile = (GraphQLFile) psiFileFactory.createFileFromText(fileName, GraphQLLanguage.INSTANCE, introspectionJsonAsGraphQL);
+            sdlFile.putUserData(IS_GRAPHQL_INTROSPECTION_SDL, true);
+            sdlFile.getVirtualFile().putUserData(IS_GRAPHQL_INTROSPECTION_SDL, true);
+            sdlFile.getVirtualFile().setWritable(false);
+        }
+        introspectionFileToSDL.put(file, new IntrospectionSDL(sdlFile, modificationStamp, contentHash, includeDefaultValues));
+        linkIntrospectionFiles(psiFile, file, sdlFile);
+        return sdlFile;
+    }
+
+    private static void linkIntrospectionFiles(PsiFile psiFile, VirtualFile file, GraphQLFile sdlFile) {
+        // the JSON PSI file can be re-created while the SDL file is kept, so the links are refreshed on every use
+        sdlFile.putUserData(GRAPHQL_INTROSPECTION_SDL_TO_JSON, psiFile);
+        sdlFile.getVirtualFile().putUserData(GRAPHQL_INTROSPECTION_SDL_TO_JSON, psiFile);
+        psiFile.putUserData(GRAPHQL_INTROSPECTION_JSON_TO_SDL, sdlFile);
+        file.putUserData(GRAPHQL_INTROSPECTION_JSON_TO_SDL, sdlFile);
+    }
+
+    private static String getContentHash(CharSequence content) {
+        return Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Gets the parsed type system definitions of a GraphQL file. Files that are unchanged since the last registry build are served
+     * from the cache as-is, and in changed files only the definitions whose source text or position has changed are re-parsed.
+     */
+    private List<ParsedTypeSystemDefinition> getParsedTypeSystemDefinitions(PsiFile psiFile) {
+        final PsiElement context = psiFile.getContext();
+        final String fileKey = context != null ? GraphQLPsiUtil.getFileName(psiFile) + ":" + context.getTextOffset() : GraphQLPsiUtil.getFileName(psiFile);
+        final long modificationStamp = psiFile.getModificationStamp();
+        final ParsedFile parsedFile = fileKeyToParsedFile.get(fileKey);
+        if (parsedFile != null && parsedFile.isUpToDate(psiFile, modificationStamp)) {
+            return parsedFile.definitions;
+        }
+        final List<ParsedTypeSystemDefinition> definitions = parseTypeSystemDefinitions(psiFile, parsedFile);
+        fileKeyToParsedFile.put(fileKey, new ParsedFile(psiFile, modificationStamp, definitions));
+        return definitions;
+    }
+
+    private List<ParsedTypeSystemDefinition> parseTypeSystemDefinitions(PsiFile psiFile, ParsedFile previouslyParsedFile) {
+        final GraphQLTypeSystemDefinition[] typeSystemDefinitions = PsiTreeUtil.getChildrenOfType(psiFile, GraphQLTypeSystemDefinition.class);
+        if (typeSystemDefinitions == null) {
+            return Collections.emptyList();
+        }
+
+        // definitions from the previous version of the file can be re-used if their source text and position is unchanged
+        final Map<String, ParsedTypeSystemDefinition> previousDefinitions = Maps.newHashMap();
+        if (previouslyParsedFile != null) {
+            for (ParsedTypeSystemDefinition previousDefinition : previouslyParsedFile.definitions) {
+                previousDefinitions.put(previousDefinition.sourceText, previousDefinition);
+            }
+        }
+
+        final List<ParsedTypeSystemDefinition> parsedDefinitions = Lists.newArrayListWithExpectedSize(typeSystemDefinitions.length);
+
+        // for injected GraphQL we need to take the location of the injection into account, so count the lines plus first-line column delta
+        int injectedFirstLineColumnDelta = 0;
+        int injectionLineDelta = 0;
+        if (psiFile.getContext() != null) {
+            int endOffset = psiFile.getContext().getTextOffset();
+            final PsiFile fileWithInjection = psiFile.getContext().getContainingFile();
+            final CharSequence injectionBuffer = fileWithInjection.getViewProvider().getContents();
+            for (int i = 0; i < endOffset; i++) {
+                if (injectionBuffer.charAt(i) == '\n') {
+                    injectedFirstLineColumnDelta = 0;
+                    injectionLineDelta++;
+                } else {
+                    injectedFirstLineColumnDelta++;
+                }
+            }
+        }
+
+        // count out the new lines to be able to map from text offset in the buffer to line number (1-based
+
+        final String fileBuffer = psiFile.getText();
+        final Map<Integer, Integer> offsetToLine = Maps.newHashMap();
+        int currentLine = 1; // GraphQL antlr parser is 1-based for line numbers
+        for(int i = 0; i < fileBuffer.length(); i++) {
+            if(fileBuffer.charAt(i) == '\n') {
+                currentLine++;
+                offsetToLine.put(i + 1, currentLine);
+            }
+        }
+
+        GraphQLPsiToLanguage psiToLanguage = null;
+
+        for (GraphQLTypeSystemDefinition typeSystemDefinition : typeSystemDefinitions) {
+
+            // parse each definition separately since graphql-java has no error recovery, and it's likely there's errors in the editor
+
+            // track where the definition starts, but also include white space and comments leading up to the definition
+            // since it can contain docs and affects line/col
+            int bufferStart = typeSystemDefinition.getTextOffset();
+            int prefixStart = bufferStart;
+
+            PsiElement prevSibling = typeSystemDefinition.getPrevSibling();
+            while(prevSibling instanceof PsiComment || prevSibling instanceof PsiWhiteSpace) {
+                prefixStart = prevSibling.getTextOffset();
+                prevSibling = prevSibling.getPrevSibling();
+            }
+
+            String definitionPrefix;
+            if(prefixStart < bufferStart) {
+                definitionPrefix = fileBuffer.substring(prefixStart, bufferStart);
+            } else {
+                definitionPrefix = "";
+            }
+
+            int lineDelta = 0;
+            for (int i = prefixStart; i > 0; i--) {
+                Integer lineAtOffset = offsetToLine.get(i);
+                if(lineAtOffset != null) {
+                    lineDelta = lineAtOffset - 1;
+                    break;
+                }
+            }
+
+            String definitionSourceText = typeSystemDefinition.getText();
+            if (graphQLInjectionSearchHelper != null && psiFile.getContext() instanceof PsiLanguageInjectionHost) {
+                definitionSourceText = graphQLInjectionSearchHelper.applyInjectionDelimitingQuotesEscape(definitionSourceText);
+            }
+            final StringBuffer typeSystemDefinitionBuffer = new StringBuffer(definitionPrefix.length() + definitionSourceText.length());
+            typeSystemDefinitionBuffer.append(definitionPrefix).append(definitionSourceText);
+            // if there are syntax errors on optional elements, replace them with whitespace
+            PsiTreeUtil.findChildrenOfType(typeSystemDefinition, PsiErrorElement.class).forEach(error -> {
+                final PsiElement parent = error.getParent();
+                if(parent instanceof GraphQLDirective) {
+                    // happens when typing '@' and the name of the directive is still missing
+                    final int delta = typeSystemDefinition.getTextRange().getStartOffset();
+                    final TextRange parentRange = parent.getTextRange();
+                    final TextRange textRange = new TextRange(parentRange.getStartOffset() - delta, parentRange.getEndOffset() - delta);
+                    if(!textRange.isEmpty()) {
+                        typeSystemDefinitionBuffer.replace(textRange.getStartOffset(), textRange.getEndOffset(), StringUtil.repeat(" ", textRange.getLength()));
+                    }
+                }
+            });
+
+            final int definitionLineDelta = lineDelta + injectionLineDelta;
+            final String sourceText = typeSystemDefinitionBuffer.toString();
+
+            // the parse result only depends on the source text and the line/column deltas, so unchanged definitions don't have to be parsed again
+            final ParsedTypeSystemDefinition previousDefinition = previousDefinitions.get(sourceText);
+            if (previousDefinition != null && previousDefinition.lineDelta == definitionLineDelta && previousDefinition.firstLineColumnDelta == injectedFirstLineColumnDelta) {
+                parsedDefinitions.add(previousDefinition);
+                continue;
+            }
+
+            parsedDefinitionCount.incrementAndGet();
+            TypeDefinitionRegistry definitionRegistry = null;
+            final List<GraphQLException> definitionErrors = Lists.newArrayListWithExpectedSize(1);
+            try {
+                Document document = null;
+                if (GraphQLPsiToLanguage.canConvert(typeSystemDefinition)) {
+                    // the PSI is already parsed and error free, so create the graphql-java nodes from it instead of parsing the text again
+                    if (psiToLanguage == null) {
+                        psiToLanguage = new GraphQLPsiToLanguage(psiFile, GraphQLPsiUtil.getFileName(psiFile));
+                    }
+                    try {
+                        document = psiToLanguage.createDocument(Collections.singletonList(typeSystemDefinition));
+                    } catch (IllegalArgumentException e) {
+                        // PSI the converter doesn't support, so let graphql-java parse the text instead
+                        LOG.debug("Unable to convert PSI of " + psiFile.getName() + ", parsing the text instead", e);
+                    }
+                }
+                if (document == null) {
+                    // adjust line numbers in source locations if there's a line delta compared to the original file buffer
+                    document = GraphQLUtil.parseDocument(sourceText, GraphQLPsiUtil.getFileName(psiFile), definitionLineDelta, injectedFirstLineColumnDelta);
+                }
+
+                definitionRegistry = new SchemaParser().buildRegistry(document);
+            } catch (GraphQLException | CancellationException e) {
+                if(e instanceof GraphQLException) {
+                    definitionErrors.add((GraphQLException) e);
+                } else if (e instanceof CancellationException) {
+                    // CancellationException is a parse error, but we don't always have a valid program as the user types, so that's expected
+                    if(e.getCause() instanceof RecognitionException) {
+                        final Token offendingToken = ((RecognitionException) e.getCause()).getOffendingToken();
+                        if(offendingToken != null) {
+                            final List<SourceLocation> sourceLocation = Collections.singletonList(
+                                    GraphQLUtil.createSourceLocationFromDelta(offendingToken, definitionLineDelta, injectedFirstLineColumnDelta)
+                            );
+                            definitionErrors.add(new SchemaProblem(Collections.singletonList(new InvalidSyntaxError(sourceLocation, "Unexpected token: \"" + offendingToken.getText() + "\""))));
+                        }
+                    }
+                }
+            }
+            parsedDefinitions.add(new ParsedTypeSystemDefinition(sourceText, definitionLineDelta, injectedFirstLineColumnDelta, definitionRegistry, definitionErrors));
+        }
+
+        return parsedDefinitions;
+    }
+
+    /**
+     * The result of parsing a single type system definition using graphql-java
+     */
+    private static class ParsedTypeSystemDefinition {
+
+        final String sourceText;
+        final int lineDelta;
+        final int firstLineColumnDelta;
+        final TypeDefinitionRegistry registry;
+        final List<GraphQLException> errors;
+
+        ParsedTypeSystemDefinition(String sourceText, int lineDelta, int firstLineColumnDelta, TypeDefinitionRegistry registry, List<GraphQLException> errors) {
+            this.sourceText = sourceText;
+            this.lineDelta = lineDelta;
+            this.firstLineColumnDelta = firstLineColumnDelta;
+            this.registry = registry;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * The parsed type system definitions of a file at a specific modification stamp
+     */
+    private static class ParsedFile {
+
+        final Reference<PsiFile> psiFile;
+        final long modificationStamp;
+        final List<ParsedTypeSystemDefinition> definitions;
+
+        ParsedFile(PsiFile psiFile, long modificationStamp, List<ParsedTypeSystemDefinition> definitions) {
+            // weak reference since injected and introspection files are recreated as the user types
+            this.psiFile = new WeakReference<>(psiFile);
+            this.modificationStamp = modificationStamp;
+            this.definitions = definitions;
+        }
+
+        boolean isUpToDate(PsiFile file, long currentModificationStamp) {
+            return psiFile.get() == file && modificationStamp == currentModificationStamp;
+        }
+
+        boolean isDisposed() {
+            final PsiFile file = psiFile.get();
+            return file == null || !file.isValid();
+        }
+    }
+
+    /**
+     * The GraphQL SDL file derived from a JSON introspection file at a specific modification stamp and content hash
+     */
+    private static class IntrospectionSDL {
+
+        final GraphQLFile sdlFile;
+        final long modificationStamp;
+        final String contentHash;
+        final boolean includeDefaultValues;
+
+        IntrospectionSDL(GraphQLFile sdlFile, long modificationStamp, String contentHash, boolean includeDefaultValues) {
+            this.sdlFile = sdlFile;
+            this.modificationStamp = modificationStamp;
+            this.contentHash = contentHash;
+            this.includeDefaultValues = includeDefaultValues;
+        }
+    }
 }
@@ -31,6 +31,11 @@ public class GraphQLProjectSettingsForm {
     JPanel relayModernPanel;
     JCheckBox enableRelayModernCheckBox;
 
+    // schema
+    private JPanel schemaPanel;
+    private JCheckBox enableBackgroundSchemaBuildCheckBox;
+    private JCheckBox enableParallelSchemaBuildCheckBox;
+
     private GraphQLSettings mySettings;
 
     GraphQLProjectSettingsForm initialize(GraphQLSettings mySettings) {
@@ -38,6 +43,7 @@ public class GraphQLProjectSettingsForm {
         this.mySettings = mySettings;
         introspectionPanel.setBorder(IdeBorderFactory.createTitledBorder("GraphQL Introspection"));
         relayModernPanel.setBorder(IdeBorderFactory.createTitledBorder("GraphQL Frameworks"));
+        schemaPanel.setBorder(IdeBorderFactory.createTitledBorder("GraphQL Schema"));
 
         return this;
     }
@@ -62,12 +68,16 @@ public class GraphQLProjectSettingsForm {
         mySettings.setIntrospectionQuery(introspectionQueryTextField.getText());
         mySettings.setEnableRelayModernFrameworkSupport(enableRelayModernCheckBox.isSelected());
         mySettings.setEnableIntrospectionDefaultValues(enableIntrospectionDefaultValues.isSelected());
+        mySettings.setEnableBackgroundSchemaBuild(enableBackgroundSchemaBuildCheckBox.isSelected());
+        mySettings.setEnableParallelSchemaBuild(enableParallelSchemaBuildCheckBox.isSelected());
     }
 
     void reset() {
         introspectionQueryTextField.setText(mySettings.getIntrospectionQuery());
         enableIntrospectionDefaultValues.setSelected(mySettings.isEnableIntrospectionDefaultValues());
         enableRelayModernCheckBox.setSelected(mySettings.isEnableRelayModernFrameworkSupport());
+        enableBackgroundSchemaBuildCheckBox.setSelected(mySettings.isEnableBackgroundSchemaBuild());
+        enableParallelSchemaBuildCheckBox.setSelected(mySettings.isEnableParallelSchemaBuild());
     }
 
     boolean isModified() {
@@ -80,6 +90,12 @@ public class GraphQLProjectSettingsForm {
         if (mySettings.isEnableIntrospectionDefaultValues() != enableIntrospectionDefaultValues.isSelected()) {
             return true;
         }
+        if (mySettings.isEnableBackgroundSchemaBuild() != enableBackgroundSchemaBuildCheckBox.isSelected()) {
+            return true;
+        }
+        if (mySettings.isEnableParallelSchemaBuild() != enableParallelSchemaBuildCheckBox.isSelected()) {
+            return true;
+        }
         return false;
     }
 
@@ -99,9 +115,9 @@ public class GraphQLProjectSettingsForm {
      */
     private void $$$setupUI$$$() {
         rootPanel = new JPanel();
-        rootPanel.setLayout(new GridLayoutManager(3, 1, new Insets(0, 0, 0, 0), -1, -1));
+        rootPanel.setLayout(new GridLayoutManager(4, 1, new Insets(0, 0, 0, 0), -1, -1));
         final Spacer spacer1 = new Spacer();
-        rootPanel.add(spacer1, new GridConstraints(2, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_VERTICAL, 1, GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
+        rootPanel.add(spacer1, new GridConstraints(3, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_VERTICAL, 1, GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
         introspectionPanel = new JPanel();
         introspectionPanel.setLayout(new GridLayoutManager(3, 1, new Insets(0, 0, 0, 0), -1, -1));
         rootPanel.add(introspectionPanel, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, null, null, null, 0, false));
@@ -126,6 +142,18 @@ public class GraphQLProjectSettingsForm {
         enableRelayModernCheckBox.setText("Enable Relay Modern support");
         enableRelayModernCheckBox.setToolTipText("Adds Relay Modern directives to schema discovery and filters  non-spec errors such as fragment arguments");
         relayModernPanel.add(enableRelayModernCheckBox, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        schemaPanel = new JPanel();
+        schemaPanel.setLayout(new GridLayoutManager(2, 1, new Insets(0, 0, 0, 0), -1, -1));
+        rootPanel.add(schemaPanel, new GridConstraints(2, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, null, null, null, 0, false));
+        enableBackgroundSchemaBuildCheckBox = new JCheckBox();
+        enableBackgroundSchemaBuildCheckBox.setEnabled(true);
+        enableBackgroundSchemaBuildCheckBox.setText("Rebuild schemas in the background while editing");
+        enableBackgroundSchemaBuildCheckBox.setToolTipText("Keeps completion and highlighting responsive while editing type definitions by using the previous schema until the rebuilt schema is ready");
+        schemaPanel.add(enableBackgroundSchemaBuildCheckBox, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        enableParallelSchemaBuildCheckBox = new JCheckBox();
+        enableParallelSchemaBuildCheckBox.setText("Parse schema files in parallel");
+        enableParallelSchemaBuildCheckBox.setToolTipText("Speeds up building large schemas by parsing the files that contribute type definitions on multiple cores");
+        schemaPanel.add(enableParallelSchemaBuildCheckBox, new GridConstraints(1, 0, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
     }
 
     /**
@@ -0,0 +1,710 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.utils;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.injection.InjectedLanguageManager;
+import com.intellij.lang.jsgraphql.ide.project.GraphQLInjectionSearchHelper;
+import com.intellij.lang.jsgraphql.psi.GraphQLArrayValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLBooleanValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLDirectiveDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumTypeDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumValueDefinitions;
+import com.intellij.lang.jsgraphql.psi.GraphQLFloatValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFragmentSelection;
+import com.intellij.lang.jsgraphql.psi.GraphQLFragmentSpread;
+import com.intellij.lang.jsgraphql.psi.GraphQLInlineFragment;
+import com.intellij.lang.jsgraphql.psi.GraphQLInputObjectTypeDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLInputObjectTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLInputObjectValueDefinitions;
+import com.intellij.lang.jsgraphql.psi.GraphQLIntValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLInterfaceTypeDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLInterfaceTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLListType;
+import com.intellij.lang.jsgraphql.psi.GraphQLNonNullType;
+import com.intellij.lang.jsgraphql.psi.GraphQLNullValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLObjectTypeDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLObjectTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLObjectValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLOperationTypeDefinitions;
+import com.intellij.lang.jsgraphql.psi.GraphQLQuotedString;
+import com.intellij.lang.jsgraphql.psi.GraphQLScalarTypeDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLScalarTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLSchemaDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLSelectionSetOperationDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLStringValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLTemplateDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLTemplateSelection;
+import com.intellij.lang.jsgraphql.psi.GraphQLTemplateVariable;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeName;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypedOperationDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLUnionMembership;
+import com.intellij.lang.jsgraphql.psi.GraphQLUnionTypeDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLUnionTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLVariable;
+import com.intellij.lang.jsgraphql.psi.GraphQLVariableDefinitions;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiErrorElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiLanguageInjectionHost;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.PsiTreeUtil;
+import graphql.language.*;
+import graphql.parser.StringValueParsing;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates graphql-java documents directly from GraphQL PSI, such that text which has already been parsed into PSI
+ * doesn't have to be parsed again by the graphql-java ANTLR parser.
+ * <p>
+ * Source locations are the one-based line and column of each node in the top-level file, i.e. the host file for injected GraphQL,
+ * and point to the same tokens as the locations created by {@link GraphQLUtil#parseDocument(String, String, int, int)}.
+ * Only PSI without syntax errors and template placeholders can be converted, see {@link #canConvert(PsiElement)}.
+ */
+public class GraphQLPsiToLanguage {
+
+    private final PsiFile psiFile;
+    private final String sourceName;
+    private final InjectedLanguageManager injectedLanguageManager;
+    private final GraphQLInjectionSearchHelper injectionSearchHelper;
+    private final int[] lineStartOffsets;
+
+    /**
+     * @param psiFile    the file that contains the PSI to convert
+     * @param sourceName the source name of the created source locations
+     */
+    public GraphQLPsiToLanguage(@NotNull PsiFile psiFile, @Nullable String sourceName) {
+        this.psiFile = psiFile;
+        this.sourceName = sourceName;
+        final PsiElement context = psiFile.getContext();
+        if (context != null && context.getContainingFile() != null) {
+            injectedLanguageManager = InjectedLanguageManager.getInstance(psiFile.getProject());
+            lineStartOffsets = getLineStartOffsets(context.getContainingFile().getViewProvider().getContents());
+        } else {
+            injectedLanguageManager = null;
+            lineStartOffsets = getLineStartOffsets(psiFile.getViewProvider().getContents());
+        }
+        injectionSearchHelper = context instanceof PsiLanguageInjectionHost ? ServiceManager.getService(GraphQLInjectionSearchHelper.class) : null;
+    }
+
+    /**
+     * Gets whether the element is free of syntax errors and template placeholders, and can be converted as-is
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean canConvert(@NotNull PsiElement element) {
+        if (element instanceof GraphQLTemplateDefinition) {
+            return false;
+        }
+        return PsiTreeUtil.findChildOfAnyType(element, false,
+                PsiErrorElement.class, GraphQLTemplateDefinition.class, GraphQLTemplateSelection.class, GraphQLTemplateVariable.class
+        ) == null;
+    }
+
+    /**
+     * Creates a document with all the definitions in the file
+     *
+     * @throws IllegalArgumentException if the file contains PSI that can't be converted
+     */
+    public Document createDocument() {
+        final GraphQLDefinition[] definitions = PsiTreeUtil.getChildrenOfType(psiFile, GraphQLDefinition.class);
+        return createDocument(definitions != null ? Arrays.asList(definitions) : Collections.emptyList());
+    }
+
+    /**
+     * Creates a document with the specified definitions
+     *
+     * @throws IllegalArgumentException if a definition contains PSI that can't be converted
+     */
+    public Document createDocument(@NotNull List<? extends GraphQLDefinition> definitions) {
+        final List<Definition> result = Lists.newArrayListWithExpectedSize(definitions.size());
+        for (GraphQLDefinition definition : definitions) {
+            result.add(createDefinition(definition));
+        }
+        final Document.Builder builder = Document.newDocument().definitions(result);
+        if (!definitions.isEmpty()) {
+            builder.sourceLocation(getSourceLocation(definitions.get(0)));
+        }
+        return builder.build();
+    }
+
+    private Definition createDefinition(GraphQLDefinition definition) {
+        if (definition instanceof GraphQLTypedOperationDefinition) {
+            return createOperationDefinition((GraphQLTypedOperationDefinition) definition);
+        }
+        if (definition instanceof GraphQLSelectionSetOperationDefinition) {
+            return OperationDefinition.newOperationDefinition()
+                    .operation(OperationDefinition.Operation.QUERY)
+                    .selectionSet(createSelectionSet(((GraphQLSelectionSetOperationDefinition) definition).getSelectionSet()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLFragmentDefinition) {
+            final GraphQLFragmentDefinition fragmentDefinition = (GraphQLFragmentDefinition) definition;
+            return FragmentDefinition.newFragmentDefinition()
+                    .name(getName(fragmentDefinition.getNameIdentifier()))
+                    .typeCondition(fragmentDefinition.getTypeCondition() != null ? createTypeName(fragmentDefinition.getTypeCondition().getTypeName()) : null)
+                    .directives(createDirectives(fragmentDefinition.getDirectives()))
+                    .selectionSet(createSelectionSet(fragmentDefinition.getSelectionSet()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLSchemaDefinition) {
+            return createSchemaDefinition((GraphQLSchemaDefinition) definition);
+        }
+        if (definition instanceof GraphQLDirectiveDefinition) {
+            return createDirectiveDefinition((GraphQLDirectiveDefinition) definition);
+        }
+        if (definition instanceof GraphQLObjectTypeDefinition) {
+            final GraphQLObjectTypeDefinition typeDefinition = (GraphQLObjectTypeDefinition) definition;
+            return ObjectTypeDefinition.newObjectTypeDefinition()
+                    .name(getName(typeDefinition.getTypeNameDefinition()))
+                    .description(createDescription(typeDefinition.getDescription()))
+                    .implementz(createImplements(typeDefinition.getImplementsInterfaces()))
+                    .directives(createDirectives(typeDefinition.getDirectives()))
+                    .fieldDefinitions(createFieldDefinitions(typeDefinition.getFieldsDefinition()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLObjectTypeExtensionDefinition) {
+            final GraphQLObjectTypeExtensionDefinition typeExtension = (GraphQLObjectTypeExtensionDefinition) definition;
+            return ObjectTypeExtensionDefinition.newObjectTypeExtensionDefinition()
+                    .name(getName(typeExtension.getTypeName()))
+                    .implementz(createImplements(typeExtension.getImplementsInterfaces()))
+                    .directives(createDirectives(typeExtension.getDirectives()))
+                    .fieldDefinitions(createFieldDefinitions(typeExtension.getFieldsDefinition()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLInterfaceTypeDefinition) {
+            final GraphQLInterfaceTypeDefinition typeDefinition = (GraphQLInterfaceTypeDefinition) definition;
+            return InterfaceTypeDefinition.newInterfaceTypeDefinition()
+                    .name(getName(typeDefinition.getTypeNameDefinition()))
+                    .description(createDescription(typeDefinition.getDescription()))
+                    .implementz(createImplements(typeDefinition.getImplementsInterfaces()))
+                    .directives(createDirectives(typeDefinition.getDirectives()))
+                    .definitions(createFieldDefinitions(typeDefinition.getFieldsDefinition()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLInterfaceTypeExtensionDefinition) {
+            final GraphQLInterfaceTypeExtensionDefinition typeExtension = (GraphQLInterfaceTypeExtensionDefinition) definition;
+            return InterfaceTypeExtensionDefinition.newInterfaceTypeExtensionDefinition()
+                    .name(getName(typeExtension.getTypeName()))
+                    .implementz(createImplements(typeExtension.getImplementsInterfaces()))
+                    .directives(createDirectives(typeExtension.getDirectives()))
+                    .definitions(createFieldDefinitions(typeExtension.getFieldsDefinition()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLUnionTypeDefinition) {
+            final GraphQLUnionTypeDefinition typeDefinition = (GraphQLUnionTypeDefinition) definition;
+            return UnionTypeDefinition.newUnionTypeDefinition()
+                    .name(getName(typeDefinition.getTypeNameDefinition()))
+                    .description(createDescription(typeDefinition.getDescription()))
+                    .directives(createDirectives(typeDefinition.getDirectives()))
+                    .memberTypes(createUnionMembers(typeDefinition.getUnionMembership()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLUnionTypeExtensionDefinition) {
+            final GraphQLUnionTypeExtensionDefinition typeExtension = (GraphQLUnionTypeExtensionDefinition) definition;
+            return UnionTypeExtensionDefinition.newUnionTypeExtensionDefinition()
+                    .name(getName(typeExtension.getTypeName()))
+                    .directives(createDirectives(typeExtension.getDirectives()))
+                    .memberTypes(createUnionMembers(typeExtension.getUnionMembership()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLEnumTypeDefinition) {
+            final GraphQLEnumTypeDefinition typeDefinition = (GraphQLEnumTypeDefinition) definition;
+            return EnumTypeDefinition.newEnumTypeDefinition()
+                    .name(getName(typeDefinition.getTypeNameDefinition()))
+                    .description(createDescription(typeDefinition.getDescription()))
+                    .directives(createDirectives(typeDefinition.getDirectives()))
+                    .enumValueDefinitions(createEnumValueDefinitions(typeDefinition.getEnumValueDefinitions()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLEnumTypeExtensionDefinition) {
+            final GraphQLEnumTypeExtensionDefinition typeExtension = (GraphQLEnumTypeExtensionDefinition) definition;
+            return EnumTypeExtensionDefinition.newEnumTypeExtensionDefinition()
+                    .name(getName(typeExtension.getTypeName()))
+                    .directives(createDirectives(typeExtension.getDirectives()))
+                    .enumValueDefinitions(createEnumValueDefinitions(typeExtension.getEnumValueDefinitions()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLInputObjectTypeDefinition) {
+            final GraphQLInputObjectTypeDefinition typeDefinition = (GraphQLInputObjectTypeDefinition) definition;
+            return InputObjectTypeDefinition.newInputObjectDefinition()
+                    .name(getName(typeDefinition.getTypeNameDefinition()))
+                    .description(createDescription(typeDefinition.getDescription()))
+                    .directives(createDirectives(typeDefinition.getDirectives()))
+                    .inputValueDefinitions(createInputObjectValueDefinitions(typeDefinition.getInputObjectValueDefinitions()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLInputObjectTypeExtensionDefinition) {
+            final GraphQLInputObjectTypeExtensionDefinition typeExtension = (GraphQLInputObjectTypeExtensionDefinition) definition;
+            return InputObjectTypeExtensionDefinition.newInputObjectTypeExtensionDefinition()
+                    .name(getName(typeExtension.getTypeName()))
+                    .directives(createDirectives(typeExtension.getDirectives()))
+                    .inputValueDefinitions(createInputObjectValueDefinitions(typeExtension.getInputObjectValueDefinitions()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLScalarTypeDefinition) {
+            final GraphQLScalarTypeDefinition typeDefinition = (GraphQLScalarTypeDefinition) definition;
+            return ScalarTypeDefinition.newScalarTypeDefinition()
+                    .name(getName(typeDefinition.getTypeNameDefinition()))
+                    .description(createDescription(typeDefinition.getDescription()))
+                    .directives(createDirectives(typeDefinition.getDirectives()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        if (definition instanceof GraphQLScalarTypeExtensionDefinition) {
+            final GraphQLScalarTypeExtensionDefinition typeExtension = (GraphQLScalarTypeExtensionDefinition) definition;
+            return ScalarTypeExtensionDefinition.newScalarTypeExtensionDefinition()
+                    .name(getName(typeExtension.getTypeName()))
+                    .directives(createDirectives(typeExtension.getDirectives()))
+                    .comments(createComments(definition))
+                    .sourceLocation(getSourceLocation(definition))
+                    .build();
+        }
+        throw new IllegalArgumentException("Unsupported definition: " + definition.getText());
+    }
+
+    // ---- operations ----
+
+    private OperationDefinition createOperationDefinition(GraphQLTypedOperationDefinition operationDefinition) {
+        final String operationType = operationDefinition.getOperationType().getText();
+        final List<VariableDefinition> variableDefinitions = Lists.newArrayList();
+        final GraphQLVariableDefinitions psiVariableDefinitions = operationDefinition.getVariableDefinitions();
+        if (psiVariableDefinitions != null) {
+            for (com.intellij.lang.jsgraphql.psi.GraphQLVariableDefinition variableDefinition : psiVariableDefinitions.getVariableDefinitions()) {
+                variableDefinitions.add(VariableDefinition.newVariableDefinition()
+                        .name(getVariableName(variableDefinition.getVariable()))
+                        .type(createType(variableDefinition.getType()))
+                        .defaultValue(variableDefinition.getDefaultValue() != null ? createValue(variableDefinition.getDefaultValue().getValue()) : null)
+                        .directives(createDirectives(variableDefinition.getDirectives()))
+                        .sourceLocation(getSourceLocation(variableDefinition))
+                        .build());
+            }
+        }
+        return OperationDefinition.newOperationDefinition()
+                .name(operationDefinition.getNameIdentifier() != null ? getName(operationDefinition.getNameIdentifier()) : null)
+                .operation(OperationDefinition.Operation.valueOf(StringUtil.toUpperCase(operationType)))
+                .variableDefinitions(variableDefinitions)
+                .directives(createDirectives(operationDefinition.getDirectives()))
+                .selectionSet(createSelectionSet(operationDefinition.getSelectionSet()))
+                .comments(createComments(operationDefinition))
+                .sourceLocation(getSourceLocation(operationDefinition))
+                .build();
+    }
+
+    private SelectionSet createSelectionSet(@Nullable com.intellij.lang.jsgraphql.psi.GraphQLSelectionSet selectionSet) {
+        if (selectionSet == null) {
+            return null;
+        }
+        final List<Selection> selections = Lists.newArrayList();
+        for (com.intellij.lang.jsgraphql.psi.GraphQLSelection selection : selectionSet.getSelectionList()) {
+            if (selection.getField() != null) {
+                selections.add(createField(selection.getField()));
+            } else if (selection.getFragmentSelection() != null) {
+                selections.add(createFragmentSelection(selection.getFragmentSelection()));
+            } else {
+                throw new IllegalArgumentException("Unsupported selection: " + selection.getText());
+            }
+        }
+        return SelectionSet.newSelectionSet()
+                .selections(selections)
+                .sourceLocation(getSourceLocation(selectionSet))
+                .build();
+    }
+
+    private Field createField(com.intellij.lang.jsgraphql.psi.GraphQLField field) {
+        return Field.newField()
+                .alias(field.getAlias() != null ? getName(field.getAlias().getIdentifier()) : null)
+                .name(getName(field.getNameIdentifier()))
+                .arguments(createArguments(field.getArguments()))
+                .directives(createDirectives(field.getDirectives()))
+                .selectionSet(createSelectionSet(field.getSelectionSet()))
+                .sourceLocation(getSourceLocation(field))
+                .build();
+    }
+
+    private Selection createFragmentSelection(GraphQLFragmentSelection fragmentSelection) {
+        // graphql-java locates fragment spreads and inline fragments at the '...' token, which is part of the fragment selection
+        final SourceLocation sourceLocation = getSourceLocation(fragmentSelection);
+        final GraphQLFragmentSpread fragmentSpread = fragmentSelection.getFragmentSpread();
+        if (fragmentSpread != null) {
+            return FragmentSpread.newFragmentSpread()
+                    .name(getName(fragmentSpread.getNameIdentifier()))
+                    .directives(createDirectives(fragmentSpread.getDirectives()))
+                    .sourceLocation(sourceLocation)
+                    .build();
+        }
+        final GraphQLInlineFragment inlineFragment = fragmentSelection.getInlineFragment();
+        if (inlineFragment != null) {
+            return InlineFragment.newInlineFragment()
+                    .typeCondition(inlineFragment.getTypeCondition() != null ? createTypeName(inlineFragment.getTypeCondition().getTypeName()) : null)
+                    .directives(createDirectives(inlineFragment.getDirectives()))
+                    .selectionSet(createSelectionSet(inlineFragment.getSelectionSet()))
+                    .sourceLocation(sourceLocation)
+                    .build();
+        }
+        throw new IllegalArgumentException("Unsupported fragment selection: " + fragmentSelection.getText());
+    }
+
+    private List<Argument> createArguments(@Nullable com.intellij.lang.jsgraphql.psi.GraphQLArguments arguments) {
+        if (arguments == null) {
+            return Collections.emptyList();
+        }
+        final List<Argument> result = Lists.newArrayList();
+        for (com.intellij.lang.jsgraphql.psi.GraphQLArgument argument : arguments.getArgumentList()) {
+            result.add(Argument.newArgument()
+                    .name(getName(argument.getNameIdentifier()))
+                    .value(createValue(argument.getValue()))
+                    .sourceLocation(getSourceLocation(argument))
+                    .build());
+        }
+        return result;
+    }
+
+    private List<Directive> createDirectives(@Nullable List<com.intellij.lang.jsgraphql.psi.GraphQLDirective> directives) {
+        if (directives == null || directives.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<Directive> result = Lists.newArrayListWithExpectedSize(directives.size());
+        for (com.intellij.lang.jsgraphql.psi.GraphQLDirective directive : directives) {
+            result.add(Directive.newDirective()
+                    .name(getName(directive.getNameIdentifier()))
+                    .arguments(createArguments(directive.getArguments()))
+                    .sourceLocation(getSourceLocation(directive))
+                    .build());
+        }
+        return result;
+    }
+
+    // ---- type system ----
+
+    private SchemaDefinition createSchemaDefinition(GraphQLSchemaDefinition schemaDefinition) {
+        final SchemaDefinition.Builder builder = SchemaDefinition.newSchemaDefinition()
+                .directives(createDirectives(schemaDefinition.getDirectives()))
+                .comments(createComments(schemaDefinition))
+                .sourceLocation(getSourceLocation(schemaDefinition));
+        final GraphQLOperationTypeDefinitions operationTypeDefinitions = schemaDefinition.getOperationTypeDefinitions();
+        if (operationTypeDefinitions != null) {
+            for (com.intellij.lang.jsgraphql.psi.GraphQLOperationTypeDefinition operationTypeDefinition : operationTypeDefinitions.getOperationTypeDefinitionList()) {
+                // the operation can also be a plain name, which is reported by the schema validation
+                final PsiElement operation = operationTypeDefinition.getOperationType() != null ? operationTypeDefinition.getOperationType() : operationTypeDefinition.getFirstChild();
+                builder.operationTypeDefinition(OperationTypeDefinition.newOperationTypeDefinition()
+                        .name(operation.getText())
+                        .typeName(createTypeName(operationTypeDefinition.getTypeName()))
+                        .sourceLocation(getSourceLocation(operationTypeDefinition))
+                        .build());
+            }
+        }
+        return builder.build();
+    }
+
+    private DirectiveDefinition createDirectiveDefinition(GraphQLDirectiveDefinition directiveDefinition) {
+        final List<DirectiveLocation> directiveLocations = Lists.newArrayList();
+        if (directiveDefinition.getDirectiveLocations() != null) {
+            for (com.intellij.lang.jsgraphql.psi.GraphQLDirectiveLocation directiveLocation : directiveDefinition.getDirectiveLocations().getDirectiveLocationList()) {
+                directiveLocations.add(DirectiveLocation.newDirectiveLocation()
+                        .name(directiveLocation.getText())
+                        .sourceLocation(getSourceLocation(directiveLocation))
+                        .build());
+            }
+        }
+        return DirectiveDefinition.newDirectiveDefinition()
+                .name(getName(directiveDefinition.getNameIdentifier()))
+                .description(createDescription(directiveDefinition.getDescription()))
+                .inputValueDefinitions(createArgumentsDefinition(directiveDefinition.getArgumentsDefinition()))
+                .directiveLocations(directiveLocations)
+                .comments(createComments(directiveDefinition))
+                .sourceLocation(getSourceLocation(directiveDefinition))
+                .build();
+    }
+
+    private List<Type> createImplements(@Nullable com.intellij.lang.jsgraphql.psi.GraphQLImplementsInterfaces implementsInterfaces) {
+        if (implementsInterfaces == null) {
+            return Collections.emptyList();
+        }
+        final List<Type> result = Lists.newArrayList();
+        for (GraphQLTypeName typeName : implementsInterfaces.getTypeNameList()) {
+            result.add(createTypeName(typeName));
+        }
+        return result;
+    }
+
+    private List<Type> createUnionMembers(@Nullable GraphQLUnionMembership unionMembership) {
+        if (unionMembership == null || unionMembership.getUnionMembers() == null) {
+            return Collections.emptyList();
+        }
+        final List<Type> result = Lists.newArrayList();
+        for (GraphQLTypeName typeName : unionMembership.getUnionMembers().getTypeNameList()) {
+            result.add(createTypeName(typeName));
+        }
+        return result;
+    }
+
+    private List<FieldDefinition> createFieldDefinitions(@Nullable com.intellij.lang.jsgraphql.psi.GraphQLFieldsDefinition fieldsDefinition) {
+        if (fieldsDefinition == null) {
+            return Collections.emptyList();
+        }
+        final List<FieldDefinition> result = Lists.newArrayList();
+        for (com.intellij.lang.jsgraphql.psi.GraphQLFieldDefinition fieldDefinition : fieldsDefinition.getFieldDefinitionList()) {
+            result.add(FieldDefinition.newFieldDefinition()
+                    .name(getName(fieldDefinition.getNameIdentifier()))
+                    .description(createDescription(fieldDefinition.getDescription()))
+                    .inputValueDefinitions(createArgumentsDefinition(fieldDefinition.getArgumentsDefinition()))
+                    .type(createType(fieldDefinition.getType()))
+                    .directives(createDirectives(fieldDefinition.getDirectives()))
+                    .comments(createComments(fieldDefinition))
+                    .sourceLocation(getSourceLocation(fieldDefinition))
+                    .build());
+        }
+        return result;
+    }
+
+    private List<InputValueDefinition> createArgumentsDefinition(@Nullable com.intellij.lang.jsgraphql.psi.GraphQLArgumentsDefinition argumentsDefinition) {
+        if (argumentsDefinition == null) {
+            return Collections.emptyList();
+        }
+        return createInputValueDefinitions(argumentsDefinition.getInputValueDefinitionList());
+    }
+
+    private List<InputValueDefinition> createInputObjectValueDefinitions(@Nullable GraphQLInputObjectValueDefinitions valueDefinitions) {
+        if (valueDefinitions == null) {
+            return Collections.emptyList();
+        }
+        return createInputValueDefinitions(valueDefinitions.getInputValueDefinitionList());
+    }
+
+    private List<InputValueDefinition> createInputValueDefinitions(List<com.intellij.lang.jsgraphql.psi.GraphQLInputValueDefinition> inputValueDefinitions) {
+        final List<InputValueDefinition> result = Lists.newArrayListWithExpectedSize(inputValueDefinitions.size());
+        for (com.intellij.lang.jsgraphql.psi.GraphQLInputValueDefinition inputValueDefinition : inputValueDefinitions) {
+            result.add(InputValueDefinition.newInputValueDefinition()
+                    .name(getName(inputValueDefinition.getNameIdentifier()))
+                    .description(createDescription(inputValueDefinition.getDescription()))
+                    .type(createType(inputValueDefinition.getType()))
+                    .defaultValue(inputValueDefinition.getDefaultValue() != null ? createValue(inputValueDefinition.getDefaultValue().getValue()) : null)
+                    .directives(createDirectives(inputValueDefinition.getDirectives()))
+                    .comments(createComments(inputValueDefinition))
+                    .sourceLocation(getSourceLocation(inputValueDefinition))
+                    .build());
+        }
+        return result;
+    }
+
+    private List<EnumValueDefinition> createEnumValueDefinitions(@Nullable GraphQLEnumValueDefinitions enumValueDefinitions) {
+        if (enumValueDefinitions == null) {
+            return Collections.emptyList();
+        }
+        final List<EnumValueDefinition> result = Lists.newArrayList();
+        for (com.intellij.lang.jsgraphql.psi.GraphQLEnumValueDefinition enumValueDefinition : enumValueDefinitions.getEnumValueDefinitionList()) {
+            result.add(EnumValueDefinition.newEnumValueDefinition()
+                    .name(getName(enumValueDefinition.getEnumValue().getNameIdentifier()))
+                    .description(createDescription(enumValueDefinition.getDescription()))
+                    .directives(createDirectives(enumValueDefinition.getDirectives()))
+                    .comments(createComments(enumValueDefinition))
+                    .sourceLocation(getSourceLocation(enumValueDefinition))
+                    .build());
+        }
+        return result;
+    }
+
+    // ---- types and values ----
+
+    private Type createType(@Nullable com.intellij.lang.jsgraphql.psi.GraphQLType type) {
+        if (type instanceof GraphQLTypeName) {
+            return createTypeName((GraphQLTypeName) type);
+        }
+        if (type instanceof GraphQLListType) {
+            return ListType.newListType()
+                    .type(createType(((GraphQLListType) type).getType()))
+                    .sourceLocation(getSourceLocation(type))
+                    .build();
+        }
+        if (type instanceof GraphQLNonNullType) {
+            return NonNullType.newNonNullType()
+                    .type(createType(((GraphQLNonNullType) type).getType()))
+                    .sourceLocation(getSourceLocation(type))
+                    .build();
+        }
+        throw new IllegalArgumentException("Unsupported type: " + (type != null ? type.getText() : null));
+    }
+
+    private TypeName createTypeName(@Nullable GraphQLTypeName typeName) {
+        if (typeName == null) {
+            throw new IllegalArgumentException("Missing type name");
+        }
+        return TypeName.newTypeName()
+                .name(getName(typeName.getNameIdentifier()))
+                .sourceLocation(getSourceLocation(typeName))
+                .build();
+    }
+
+    private Value createValue(@Nullable com.intellij.lang.jsgraphql.psi.GraphQLValue value) {
+        final SourceLocation sourceLocation = value != null ? getSourceLocation(value) : null;
+        if (value instanceof GraphQLVariable) {
+            return VariableReference.newVariableReference().name(getVariableName((GraphQLVariable) value)).sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof GraphQLStringValue) {
+            final GraphQLQuotedString quotedString = ((GraphQLStringValue) value).getQuotedString();
+            return StringValue.newStringValue().value(getStringContent(getQuotedStringText(quotedString))).sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof GraphQLIntValue) {
+            return IntValue.newIntValue().value(new BigInteger(value.getText())).sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof GraphQLFloatValue) {
+            return FloatValue.newFloatValue().value(new BigDecimal(value.getText())).sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof GraphQLBooleanValue) {
+            return BooleanValue.newBooleanValue().value("true".equals(value.getText())).sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof GraphQLNullValue) {
+            return NullValue.newNullValue().sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof com.intellij.lang.jsgraphql.psi.GraphQLEnumValue) {
+            return EnumValue.newEnumValue().name(getName(((com.intellij.lang.jsgraphql.psi.GraphQLEnumValue) value).getNameIdentifier())).sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof GraphQLArrayValue) {
+            final List<Value> values = Lists.newArrayList();
+            for (com.intellij.lang.jsgraphql.psi.GraphQLValue arrayElement : ((GraphQLArrayValue) value).getValueList()) {
+                values.add(createValue(arrayElement));
+            }
+            return ArrayValue.newArrayValue().values(values).sourceLocation(sourceLocation).build();
+        }
+        if (value instanceof GraphQLObjectValue) {
+            final List<ObjectField> objectFields = Lists.newArrayList();
+            for (com.intellij.lang.jsgraphql.psi.GraphQLObjectField objectField : ((GraphQLObjectValue) value).getObjectFieldList()) {
+                objectFields.add(ObjectField.newObjectField()
+                        .name(getName(objectField.getNameIdentifier()))
+                        .value(createValue(objectField.getValue()))
+                        .sourceLocation(getSourceLocation(objectField))
+                        .build());
+            }
+            return ObjectValue.newObjectValue().objectFields(objectFields).sourceLocation(sourceLocation).build();
+        }
+        throw new IllegalArgumentException("Unsupported value: " + (value != null ? value.getText() : null));
+    }
+
+    private Description createDescription(@Nullable GraphQLQuotedString quotedString) {
+        if (quotedString == null) {
+            return null;
+        }
+        final String text = getQuotedStringText(quotedString);
+        return new Description(getStringContent(text), getSourceLocation(quotedString), text.startsWith("\"\"\""));
+    }
+
+    private String getQuotedStringText(@Nullable GraphQLQuotedString quotedString) {
+        if (quotedString == null) {
+            throw new IllegalArgumentException("Missing string");
+        }
+        final String text = quotedString.getText();
+        // injected GraphQL can contain escaped host language quotes, e.g. '\`' in JavaScript template literals
+        return injectionSearchHelper != null ? injectionSearchHelper.applyInjectionDelimitingQuotesEscape(text) : text;
+    }
+
+    private static String getStringContent(String text) {
+        if (text.startsWith("\"\"\"")) {
+            return StringValueParsing.parseTripleQuotedString(text);
+        }
+        return StringValueParsing.parseSingleQuotedString(text);
+    }
+
+    private List<Comment> createComments(PsiElement element) {
+        // graphql-java attaches the comments that precede the first token of a node, and uses them as descriptions of types without one
+        final List<Comment> comments = Lists.newArrayList();
+        PsiElement prevLeaf = PsiTreeUtil.prevLeaf(element);
+        while (prevLeaf instanceof PsiComment || prevLeaf instanceof PsiWhiteSpace) {
+            if (prevLeaf instanceof PsiComment) {
+                final String text = StringUtil.trimTrailing(prevLeaf.getText(), '\r');
+                comments.add(0, new Comment(StringUtil.trimStart(text, "#"), getSourceLocation(prevLeaf)));
+            }
+            prevLeaf = PsiTreeUtil.prevLeaf(prevLeaf);
+        }
+        return comments;
+    }
+
+    private static String getName(@Nullable PsiElement nameElement) {
+        if (nameElement == null) {
+            throw new IllegalArgumentException("Missing name");
+        }
+        return nameElement.getText();
+    }
+
+    private static String getVariableName(@Nullable GraphQLVariable variable) {
+        if (variable == null) {
+            throw new IllegalArgumentException("Missing variable");
+        }
+        // strip the '$' of the variable token
+        return variable.getText().substring(1);
+    }
+
+    // ---- source locations ----
+
+    private SourceLocation getSourceLocation(PsiElement element) {
+        int offset = element.getTextRange().getStartOffset();
+        if (injectedLanguageManager != null) {
+            offset = injectedLanguageManager.injectedToHost(element, offset);
+        }
+        int line = Arrays.binarySearch(lineStartOffsets, offset);
+        if (line < 0) {
+            // offset within a line, so use the line that starts before it
+            line = -line - 2;
+        }
+        return new SourceLocation(line + 1, offset - lineStartOffsets[line] + 1, sourceName);
+    }
+
+    private static int[] getLineStartOffsets(CharSequence text) {
+        int lineCount = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineCount++;
+            }
+        }
+        final int[] lineStartOffsets = new int[lineCount];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineStartOffsets[line++] = i + 1;
+            }
+        }
+        return lineStartOffsets;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide;
+
+import com.google.common.collect.Lists;
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.lang.jsgraphql.schema.GraphQLTypeDefinitionRegistryServiceImpl;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+import graphql.schema.GraphQLSchema;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+public class GraphQLValidationAnnotatorTest extends LightPlatformCodeInsightFixtureTestCase {
+
+    private PsiFile[] psiFiles;
+
+    @Override
+    protected void tearDown() throws Exception {
+        // clean up the schema discovery caches
+        if (psiFiles != null) {
+            for (PsiFile psiFile : psiFiles) {
+                PsiDocumentManager documentManager = PsiDocumentManager.getInstance(psiFile.getProject());
+                final Document document = documentManager.getDocument(psiFile);
+                assertNotNull(document);
+                ApplicationManager.getApplication().runWriteAction(() -> {
+                    document.setText("");
+                    documentManager.commitAllDocuments();
+                });
+            }
+        }
+        super.tearDown();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        return "test-resources/testData/graphql/validation";
+    }
+
+    @Test
+    public void testCachedErrorMovedByEdit() {
+        configure("CachedErrorMovedByEdit.graphql");
+        assertEquals(Lists.newArrayList(error("human", indexOf("human(id: \"2\")"))), getErrors());
+
+        final GraphQLSchema schema = getSchema();
+        final GraphQLDefinitionValidationCache cache = GraphQLDefinitionValidationCache.getInstance(myFixture.getFile(), schema);
+        final int hitCount = cache.getHitCount();
+        final int missCount = cache.getMissCount();
+
+        // add a field to the first operation, which moves the second operation without changing it
+        final Document document = myFixture.getEditor().getDocument();
+        final int caretOffset = myFixture.getCaretOffset();
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            document.insertString(caretOffset, "name\n        ");
+            PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+        });
+
+        final int movedOffset = indexOf("human(id: \"2\")");
+        assertEquals(Lists.newArrayList(error("human", movedOffset)), getErrors());
+
+        // the edit didn't affect the schema, so the errors of the second operation were re-used from the cache with moved offsets
+        assertSame(schema, getSchema());
+        assertSame(cache, GraphQLDefinitionValidationCache.getInstance(myFixture.getFile(), schema));
+        // only the edited operation was validated again
+        assertEquals(missCount + 1, cache.getMissCount());
+        assertTrue(cache.getHitCount() > hitCount);
+    }
+
+    @Test
+    public void testFragmentErrorReportedOnce() {
+        configure("FragmentErrorReportedOnce.graphql");
+        assertEquals(Lists.newArrayList(error("friends", indexOf("friends"))), getErrors());
+    }
+
+    @Test
+    public void testLoneAnonymousOperation() {
+        configure("LoneAnonymousOperation.graphql");
+        final List<String> expected = Lists.newArrayList(
+                error("{", indexOf("\n{") + 1) + " Anonymous operation with other operations.",
+                error("query", indexOf("query B")) + " Operation B is following anonymous operation."
+        );
+        final List<String> actual = Lists.newArrayList();
+        for (HighlightInfo info : getErrorInfos()) {
+            actual.add(error(info) + " " + info.getDescription());
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSyntaxErrorInOtherOperation() {
+        configure("SyntaxErrorInOtherOperation.graphql");
+        final List<HighlightInfo> errorInfos = getErrorInfos();
+        // the parser error in the first operation
+        assertTrue(errorInfos.toString(), errorInfos.get(0).getStartOffset() < indexOf("query B"));
+        // the validation error in the second operation
+        final List<String> errors = getErrors();
+        assertTrue(errors.toString(), errors.contains(error("human", indexOf("human(id: \"2\")"))));
+    }
+
+    // ---- util ----
+
+    private void configure(String sourceFile) {
+        psiFiles = myFixture.configureByFiles(sourceFile, "ValidationSchema.graphqls");
+    }
+
+    private GraphQLSchema getSchema() {
+        return GraphQLTypeDefinitionRegistryServiceImpl.getService(getProject()).getSchemaWithErrors(myFixture.getFile()).getSchema();
+    }
+
+    private int indexOf(String text) {
+        final int offset = myFixture.getEditor().getDocument().getText().indexOf(text);
+        assertTrue("Missing " + text, offset != -1);
+        return offset;
+    }
+
+    private List<HighlightInfo> getErrorInfos() {
+        final List<HighlightInfo> errorInfos = Lists.newArrayList(myFixture.doHighlighting(HighlightSeverity.ERROR));
+        errorInfos.sort(Comparator.comparingInt(HighlightInfo::getStartOffset));
+        return errorInfos;
+    }
+
+    private List<String> getErrors() {
+        final List<String> errors = Lists.newArrayList();
+        for (HighlightInfo info : getErrorInfos()) {
+            errors.add(error(info));
+        }
+        return errors;
+    }
+
+    private String error(HighlightInfo info) {
+        final String text = myFixture.getEditor().getDocument().getText().substring(info.getStartOffset(), info.getEndOffset());
+        return error(text, info.getStartOffset());
+    }
+
+    private static String error(String text, int offset) {
+        return "'" + text + "' at " + offset;
+    }
+}
@@ -0,0 +1,60 @@
+package com.intellij.lang.jsgraphql.ide.editor;
+
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.StringReader;
+
+/**
+ * Compares printing a large introspection result using the schema printer and the streaming printer.
+ * Benchmarks are excluded from the default test task, and are run using the 'benchmark' task.
+ */
+public class GraphQLIntrospectionHelperBenchmark extends BasePlatformTestCase {
+
+    private static final int TYPE_COUNT = 2000;
+
+    public void testSchemaPrinter() {
+        final String introspectionJson = createIntrospectionJson(TYPE_COUNT);
+        final GraphQLIntrospectionHelper helper = new GraphQLIntrospectionHelper(getProject());
+        PlatformTestUtil.startPerformanceTest("Introspection JSON to SDL using the schema printer", 5000, () -> {
+            helper.printIntrospectionJsonAsGraphQL(introspectionJson);
+        }).assertTiming();
+    }
+
+    public void testStreamingPrinter() {
+        final String introspectionJson = createIntrospectionJson(TYPE_COUNT);
+        final GraphQLIntrospectionHelper helper = new GraphQLIntrospectionHelper(getProject());
+        PlatformTestUtil.startPerformanceTest("Introspection JSON to SDL using the streaming printer", 2000, () -> {
+            helper.printIntrospectionJsonAsGraphQL(new StringReader(introspectionJson));
+        }).assertTiming();
+    }
+
+    @NotNull
+    private static String createIntrospectionJson(int typeCount) {
+        final StringBuilder json = new StringBuilder("{\"data\":{\"__schema\":{\"queryType\":{\"name\":\"Query\"},\"types\":[");
+        json.append("{\"kind\":\"OBJECT\",\"name\":\"Query\",\"interfaces\":[],\"fields\":[");
+        for (int i = 0; i < typeCount; i++) {
+            json.append(i > 0 ? "," : "").append("{\"name\":\"type").append(i).append("\",\"args\":[")
+                    .append("{\"name\":\"id\",\"type\":{\"kind\":\"NON_NULL\",\"ofType\":{\"kind\":\"SCALAR\",\"name\":\"ID\"}}}")
+                    .append("],\"type\":{\"kind\":\"OBJECT\",\"name\":\"Type").append(i).append("\"},\"isDeprecated\":false}");
+        }
+        json.append("]}");
+        for (int i = 0; i < typeCount; i++) {
+            json.append(",{\"kind\":\"OBJECT\",\"name\":\"Type").append(i).append("\",\"description\":\"Generated type ").append(i)
+                    .append("\",\"interfaces\":[{\"kind\":\"INTERFACE\",\"name\":\"Node\"}],\"fields\":[")
+                    .append("{\"name\":\"id\",\"args\":[],\"type\":{\"kind\":\"NON_NULL\",\"ofType\":{\"kind\":\"SCALAR\",\"name\":\"ID\"}},\"isDeprecated\":false}");
+            for (int f = 0; f < 10; f++) {
+                json.append(",{\"name\":\"field").append(f).append("\",\"args\":[],\"type\":{\"kind\":\"LIST\",\"ofType\":{\"kind\":\"SCALAR\",\"name\":\"String\"}},\"isDeprecated\":")
+                        .append(f == 0 ? "true,\"deprecationReason\":\"Use field1\"" : "false").append("}");
+            }
+            json.append("]}");
+        }
+        json.append(",{\"kind\":\"INTERFACE\",\"name\":\"Node\",\"interfaces\":[],\"fields\":[")
+                .append("{\"name\":\"id\",\"args\":[],\"type\":{\"kind\":\"NON_NULL\",\"ofType\":{\"kind\":\"SCALAR\",\"name\":\"ID\"}},\"isDeprecated\":false}")
+                .append("],\"possibleTypes\":[]}");
+        json.append(",{\"kind\":\"SCALAR\",\"name\":\"ID\"},{\"kind\":\"SCALAR\",\"name\":\"String\"}");
+        json.append("],\"directives\":[]}}}");
+        return json.toString();
+    }
+}
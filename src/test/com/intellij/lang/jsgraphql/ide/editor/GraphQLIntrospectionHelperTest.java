@@ -2,10 +2,14 @@ package com.intellij.lang.jsgraphql.ide.editor;
 
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.SchemaPrinter;
+import graphql.schema.idl.UnExecutableSchemaGenerator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.StringReader;
 
 public class GraphQLIntrospectionHelperTest extends BasePlatformTestCase {
 
@@ -18,6 +22,20 @@ public class GraphQLIntrospectionHelperTest extends BasePlatformTestCase {
         doTest("schema.json", "schema.graphql");
     }
 
+    public void testStreamingPrinterMatchesIntrospectionSchema() throws IOException {
+        final String introspectionJson = readSchemaJson("schema.json");
+        assertNotNull(introspectionJson);
+        final GraphQLIntrospectionHelper helper = new GraphQLIntrospectionHelper(getProject());
+        assertEquals(
+                printNormalizedSchema(helper.printIntrospectionJsonAsGraphQL(introspectionJson)),
+                printNormalizedSchema(helper.printIntrospectionJsonAsGraphQL(new StringReader(introspectionJson)))
+        );
+    }
+
+    private static String printNormalizedSchema(@NotNull String sdl) {
+        return new SchemaPrinter().print(UnExecutableSchemaGenerator.makeUnExecutableSchema(new SchemaParser().parse(sdl)));
+    }
+
     private void doTest(@NotNull String source, @NotNull String expected) {
         myFixture.configureByText(
                 "result.graphql",
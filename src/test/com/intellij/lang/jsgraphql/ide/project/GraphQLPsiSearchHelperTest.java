@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.project;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Verifies that the known fragments are found in GraphQL files and in GraphQL injections
+ */
+public class GraphQLPsiSearchHelperTest extends BasePlatformTestCase {
+
+    public void testKnownFragmentsInFilesAndInjections() {
+        myFixture.addFileToProject("Fragments.graphql", "fragment FileFragment on User { id }");
+        myFixture.addFileToProject("Injected.js", "const fragment = gql`fragment InjectedFragment on Query { user { id } }`;");
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, "query { user { ...FileFragment } }");
+
+        assertEquals(Lists.newArrayList("FileFragment", "InjectedFragment"), getKnownFragmentDefinitionNames(psiFile));
+        assertEquals(Lists.newArrayList("FileFragment on User", "InjectedFragment on Query"), getKnownFragmentNames(psiFile));
+    }
+
+    public void testAddedInjectedFragmentIsKnown() {
+        myFixture.addFileToProject("Fragments.graphql", "fragment FileFragment on User { id }");
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, "query { user { ...FileFragment } }");
+        assertEquals(Lists.newArrayList("FileFragment"), getKnownFragmentDefinitionNames(psiFile));
+
+        // the fragment names of the scope are cached, so a file added later must still be found
+        myFixture.addFileToProject("Injected.js", "const fragment = gql`fragment InjectedFragment on Query { user { id } }`;");
+        assertEquals(Lists.newArrayList("FileFragment", "InjectedFragment"), getKnownFragmentDefinitionNames(psiFile));
+        assertEquals(Lists.newArrayList("FileFragment on User", "InjectedFragment on Query"), getKnownFragmentNames(psiFile));
+    }
+
+    // ---- util ----
+
+    private List<String> getKnownFragmentDefinitionNames(PsiFile psiFile) {
+        final List<String> names = Lists.newArrayList();
+        for (GraphQLFragmentDefinition fragmentDefinition : GraphQLPsiSearchHelper.getService(getProject()).getKnownFragmentDefinitions(psiFile)) {
+            names.add(fragmentDefinition.getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private List<String> getKnownFragmentNames(PsiFile psiFile) {
+        final List<String> names = Lists.newArrayList();
+        GraphQLPsiSearchHelper.getService(getProject()).processKnownFragmentNames(psiFile, (fragmentName, typeCondition) -> {
+            names.add(fragmentName + " on " + typeCondition);
+            return true;
+        });
+        Collections.sort(names);
+        return names;
+    }
+}
@@ -0,0 +1,44 @@
+package com.intellij.lang.jsgraphql.ide.project.graphqlconfig;
+
+import com.intellij.testFramework.PlatformTestUtil;
+import minimatch.Minimatch;
+import minimatch.Options;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Compares matching typical graphql-config globs against a large set of project paths using minimatch directly and using compiled globs.
+ * Benchmarks are excluded from the default test task, and are run using the 'benchmark' task.
+ */
+public class GraphQLConfigGlobMatcherBenchmark {
+
+    private static final Options OPTIONS = new Options().setMatchBase(true);
+
+    private static final List<String> FILE_PATHS = GraphQLConfigGlobMatcherImplTest.createFilePaths(20000);
+
+    @Test
+    public void minimatch() {
+        PlatformTestUtil.startPerformanceTest("Glob matching using minimatch", 5000, () -> {
+            for (String filePath : FILE_PATHS) {
+                for (String glob : GraphQLConfigGlobMatcherImplTest.GLOBS) {
+                    Minimatch.minimatch(filePath, glob, OPTIONS);
+                }
+            }
+        }).assertTiming();
+    }
+
+    @Test
+    public void compiledGlobs() {
+        PlatformTestUtil.startPerformanceTest("Glob matching using compiled globs", 2000, () -> {
+            // a new matcher per attempt, such that each attempt measures uncached matches
+            final GraphQLConfigGlobMatcherImpl matcher = new GraphQLConfigGlobMatcherImpl();
+            for (String filePath : FILE_PATHS) {
+                for (String glob : GraphQLConfigGlobMatcherImplTest.GLOBS) {
+                    matcher.matches(filePath, glob);
+                }
+            }
+        }).assertTiming();
+    }
+
+}
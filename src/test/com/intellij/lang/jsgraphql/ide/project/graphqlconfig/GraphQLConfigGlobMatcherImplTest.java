@@ -0,0 +1,49 @@
+package com.intellij.lang.jsgraphql.ide.project.graphqlconfig;
+
+import com.google.common.collect.Lists;
+import minimatch.Minimatch;
+import minimatch.Options;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class GraphQLConfigGlobMatcherImplTest {
+
+    private static final Options OPTIONS = new Options().setMatchBase(true);
+
+    static final List<String> GLOBS = Lists.newArrayList(
+            "*.graphql",
+            "**/*.{graphql,js,jsx,ts,tsx}",
+            "src/**",
+            "src/**/queries/*.graphql",
+            "schema/*.graphql",
+            "node_modules/**",
+            "**/__generated__/**",
+            "build/**/*.js"
+    );
+
+    @Test
+    public void matchesLikeMinimatch() {
+        final GraphQLConfigGlobMatcherImpl matcher = new GraphQLConfigGlobMatcherImpl();
+        for (String filePath : createFilePaths(200)) {
+            for (String glob : GLOBS) {
+                final boolean expected = Minimatch.minimatch(filePath, glob, OPTIONS);
+                Assert.assertEquals(filePath + " " + glob, expected, matcher.matches(filePath, glob));
+                // cached result
+                Assert.assertEquals(filePath + " " + glob, expected, matcher.matches(filePath, glob));
+            }
+        }
+    }
+
+    static List<String> createFilePaths(int count) {
+        final String[] directories = {"src/components", "src/queries", "src/app/queries", "schema", "node_modules/graphql/type", "src/__generated__", "build/static/js", "test"};
+        final String[] extensions = {"graphql", "js", "jsx", "ts", "tsx", "json", "css"};
+        final List<String> filePaths = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            filePaths.add(directories[i % directories.length] + "/module" + (i / directories.length) % 50 + "/file" + i + "." + extensions[i % extensions.length]);
+        }
+        return filePaths;
+    }
+
+}
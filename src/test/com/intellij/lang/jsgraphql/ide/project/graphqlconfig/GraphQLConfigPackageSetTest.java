@@ -0,0 +1,70 @@
+package com.intellij.lang.jsgraphql.ide.project.graphqlconfig;
+
+import com.google.common.collect.Lists;
+import minimatch.Minimatch;
+import minimatch.Options;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class GraphQLConfigPackageSetTest {
+
+    private static final Options OPTIONS = new Options().setMatchBase(true);
+
+    @Test
+    public void negatedGlobIsNotSkipped() {
+        final GraphQLConfigPackageSet.CompiledGlobs globs = compile("!src/**/*.graphql");
+        Assert.assertFalse(globs.matches("src/queries/query.graphql"));
+        Assert.assertTrue(globs.matches("schema/schema.graphql"));
+        Assert.assertTrue(globs.matches("test/query.js"));
+        assertMatchesLikeMinimatch("!src/**/*.graphql");
+    }
+
+    @Test
+    public void braceGlobIsNotSkipped() {
+        final GraphQLConfigPackageSet.CompiledGlobs globs = compile("{src,schema}/*.graphql");
+        Assert.assertTrue(globs.matches("src/query.graphql"));
+        Assert.assertTrue(globs.matches("schema/schema.graphql"));
+        Assert.assertFalse(globs.matches("test/query.graphql"));
+        assertMatchesLikeMinimatch("{src,schema}/*.graphql");
+    }
+
+    @Test
+    public void matchBaseGlobWithoutSlashIsNotSkipped() {
+        final GraphQLConfigPackageSet.CompiledGlobs globs = compile("*.graphql");
+        Assert.assertTrue(globs.matches("query.graphql"));
+        Assert.assertTrue(globs.matches("src/app/queries/query.graphql"));
+        Assert.assertFalse(globs.matches("src/app/queries/query.js"));
+        assertMatchesLikeMinimatch("*.graphql");
+    }
+
+    @Test
+    public void directoryGlobIncludesFiles() {
+        // the directory doesn't have to exist when the globs are compiled
+        final GraphQLConfigPackageSet.CompiledGlobs globs = compile("src/app");
+        Assert.assertTrue(globs.matches("src/app/queries/query.graphql"));
+        Assert.assertFalse(globs.matches("src/components/query.graphql"));
+        assertMatchesLikeMinimatch("src/app");
+    }
+
+    // ---- util ----
+
+    private static GraphQLConfigPackageSet.CompiledGlobs compile(String glob) {
+        return GraphQLConfigPackageSet.CompiledGlobs.compile(Collections.singletonList(glob), new GraphQLConfigGlobMatcherImpl());
+    }
+
+    private static void assertMatchesLikeMinimatch(String glob) {
+        final GraphQLConfigPackageSet.CompiledGlobs globs = compile(glob);
+        final List<String> filePaths = Lists.newArrayList(GraphQLConfigGlobMatcherImplTest.createFilePaths(200));
+        filePaths.add("query.graphql");
+        for (String filePath : filePaths) {
+            final boolean fileMatch = Minimatch.minimatch(filePath, glob, OPTIONS);
+            final boolean directoryMatch = Minimatch.minimatch(filePath, glob + "/**", OPTIONS);
+            final boolean expected = glob.startsWith("!") ? fileMatch && directoryMatch : fileMatch || directoryMatch;
+            Assert.assertEquals(filePath + " " + glob, expected, globs.matches(filePath));
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.intellij.lang.jsgraphql.ide.project.indexing;
+
+import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLFragmentNameIndex.FragmentLocations;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLIdentifierIndex.IdentifierKind;
+import com.intellij.lang.jsgraphql.ide.project.indexing.GraphQLIdentifierIndex.IdentifierLocations;
+import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.Map;
+
+public class GraphQLInjectedIndexDataTest extends BasePlatformTestCase {
+
+    public void testScanMatchesPsi() {
+        final String text = "schema { query: Query mutation: Mutation }\n" +
+                "\"Description\"\n" +
+                "directive @cached(ttl: Int = 60, enabled: Boolean = true) on FIELD_DEFINITION | OBJECT\n" +
+                "scalar Date @cached\n" +
+                "interface Node { id: ID! }\n" +
+                "type Query implements Node & Entity @cached(ttl: 10) {\n" +
+                "  id: ID!\n" +
+                "  \"Field\"\n" +
+                "  search(text: String = \"x\", kind: Kind = ONE, filter: Filter = {name: null, tags: [\"t\"]}): [Result!]!\n" +
+                "}\n" +
+                "union Result = Query | Mutation\n" +
+                "enum Kind { ONE TWO @deprecated(reason: \"No\") }\n" +
+                "input Filter { name: String, tags: [String] = [] }\n" +
+                "extend type Query { date: Date }\n" +
+                "extend enum Kind { THREE }\n" +
+                "query Search($text: String = \"y\", $limit: Int) @cached {\n" +
+                "  alias: search(text: $text, kind: TWO, filter: {tags: [null]}) { ...QueryFields ... on Query { id } ... @include(if: true) { id } }\n" +
+                "  ${templateSelection}\n" +
+                "}\n" +
+                "fragment QueryFields on Query { id }\n" +
+                "${templateDefinition}\n" +
+                "{ id }\n";
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, text);
+
+        final Map<String, IdentifierLocations> expectedIdentifiers = Maps.newHashMap();
+        psiFile.accept(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element instanceof GraphQLIdentifier) {
+                    expectedIdentifiers.computeIfAbsent(element.getText(), name -> new IdentifierLocations()).add(IdentifierKind.of((GraphQLIdentifier) element), element.getTextOffset() + 10);
+                    return;
+                }
+                super.visitElement(element);
+            }
+        });
+        final Map<String, FragmentLocations> expectedFragments = Maps.newHashMap();
+        for (GraphQLFragmentDefinition fragmentDefinition : PsiTreeUtil.getChildrenOfTypeAsList(psiFile, GraphQLFragmentDefinition.class)) {
+            final PsiElement nameIdentifier = fragmentDefinition.getNameIdentifier();
+            assertNotNull(nameIdentifier);
+            expectedFragments.computeIfAbsent(nameIdentifier.getText(), name -> new FragmentLocations()).add(GraphQLFragmentNameIndex.getTypeConditionName(fragmentDefinition), nameIdentifier.getTextOffset() + 10);
+        }
+
+        final GraphQLInjectedIndexData indexData = new GraphQLInjectedIndexData();
+        indexData.scan(text, 10);
+
+        assertEquals(expectedIdentifiers, indexData.getIdentifiers());
+        assertEquals(expectedFragments, indexData.getFragments());
+    }
+
+}
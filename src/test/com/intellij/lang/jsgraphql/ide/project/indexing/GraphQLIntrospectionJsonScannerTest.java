@@ -0,0 +1,29 @@
+package com.intellij.lang.jsgraphql.ide.project.indexing;
+
+import com.google.common.collect.Lists;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.List;
+
+public class GraphQLIntrospectionJsonScannerTest extends BasePlatformTestCase {
+
+    public void testIsIntrospectionJson() {
+        assertTrue(GraphQLIntrospectionJsonScanner.isIntrospectionJson("{\"__schema\": {\"types\": []}}"));
+        assertTrue(GraphQLIntrospectionJsonScanner.isIntrospectionJson("{\"errors\": [{\"data\": 1}], \"data\" : { \"other\": {\"__schema\": 1}, \"__schema\": {}}}"));
+        assertFalse(GraphQLIntrospectionJsonScanner.isIntrospectionJson("{\"data\": {\"other\": {\"__schema\": {}}}}"));
+        assertFalse(GraphQLIntrospectionJsonScanner.isIntrospectionJson("{\"other\": {\"__schema\": {}}, \"data\": []}"));
+        assertFalse(GraphQLIntrospectionJsonScanner.isIntrospectionJson("[{\"__schema\": {}}]"));
+        assertFalse(GraphQLIntrospectionJsonScanner.isIntrospectionJson("{\"name\": \"package\", \"version\": \"1.0.0\"}"));
+    }
+
+    public void testProcessNames() {
+        final String json = "{\"data\": {\"__schema\": {\"queryType\": {\"name\": \"Query\"}, \"types\": [" +
+                "{\"kind\": \"OBJECT\", \"name\" : \"Query\", \"description\": \"name\", \"fields\": [{\"name\": \"node\", \"args\": [{\"name\": \"id\", \"defaultValue\": null}]}]}," +
+                "{\"kind\": \"SCALAR\", \"name\": \"Esc\\u0061ped\", \"fields\": null, \"ofType\": {\"name\": null}}" +
+                "]}}}";
+        final List<String> names = Lists.newArrayList();
+        GraphQLIntrospectionJsonScanner.processNames(json, names::add);
+        assertEquals(Lists.newArrayList("Query", "Query", "node", "id", "Escaped"), names);
+    }
+
+}
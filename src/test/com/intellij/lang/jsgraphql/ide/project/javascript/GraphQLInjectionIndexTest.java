@@ -0,0 +1,18 @@
+package com.intellij.lang.jsgraphql.ide.project.javascript;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+public class GraphQLInjectionIndexTest extends BasePlatformTestCase {
+
+    public void testHasTypeSystemDefinitions() {
+        assertTrue(GraphQLInjectionIndex.hasTypeSystemDefinitions("type Query { user: User }"));
+        assertTrue(GraphQLInjectionIndex.hasTypeSystemDefinitions("\"\"\"Description\"\"\" scalar Date"));
+        assertTrue(GraphQLInjectionIndex.hasTypeSystemDefinitions("query { user { id } } extend type User { name: String }"));
+        assertTrue(GraphQLInjectionIndex.hasTypeSystemDefinitions("${fragments} directive @cached on FIELD"));
+        assertFalse(GraphQLInjectionIndex.hasTypeSystemDefinitions("query User($input: input) { user(type: input) { type } }"));
+        assertFalse(GraphQLInjectionIndex.hasTypeSystemDefinitions("fragment type on type @input { ... on enum { id } }"));
+        assertFalse(GraphQLInjectionIndex.hasTypeSystemDefinitions("# type Query\n{ id }"));
+        assertFalse(GraphQLInjectionIndex.hasTypeSystemDefinitions(""));
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema;
+
+import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLConfigManager;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.refactoring.move.moveFilesOrDirectories.MoveFilesOrDirectoriesUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+import org.junit.Test;
+
+/**
+ * Verifies that schema changes only invalidate the registries of the graphql-config projects they affect
+ */
+public class GraphQLSchemaChangeListenerTest extends LightPlatformCodeInsightFixtureTestCase {
+
+    private PsiFile[] files;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        files = myFixture.configureByFiles(
+                "schema-one/.graphqlconfig",
+                "schema-one/schema-one.graphql",
+                "schema-two/.graphqlconfig",
+                "schema-two/schema-two.graphql",
+                "schema-two/query-two.graphql"
+        );
+        // use the synchronous method of building the configuration for the unit test
+        GraphQLConfigManager.getService(getProject()).doBuildConfigurationModel(null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        // clean up the schema discovery caches
+        for (PsiFile file : files) {
+            if (!file.isValid()) {
+                continue;
+            }
+            PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+            final Document document = documentManager.getDocument(file);
+            assertNotNull(document);
+            ApplicationManager.getApplication().runWriteAction(() -> {
+                document.setText("");
+                documentManager.commitAllDocuments();
+            });
+        }
+        super.tearDown();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        return "test-resources/testData/graphql/graphql-config";
+    }
+
+    @Test
+    public void testEditOnlyInvalidatesAffectedSchema() {
+        final PsiFile schemaOne = getFile("schema-one/schema-one.graphql");
+        final PsiFile schemaTwo = getFile("schema-two/schema-two.graphql");
+        final TypeDefinitionRegistryWithErrors registryOne = getRegistry(schemaOne);
+        final TypeDefinitionRegistryWithErrors registryTwo = getRegistry(schemaTwo);
+        assertSame(registryOne, getRegistry(schemaOne));
+        assertSame(registryTwo, getRegistry(schemaTwo));
+
+        final Document document = PsiDocumentManager.getInstance(getProject()).getDocument(schemaOne);
+        assertNotNull(document);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            document.insertString(document.getTextLength(), "\n\nscalar Date\n");
+            PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+        });
+
+        assertNotSame(registryOne, getRegistry(schemaOne));
+        assertSame(registryTwo, getRegistry(schemaTwo));
+    }
+
+    @Test
+    public void testAddedFileInvalidatesAllSchemas() {
+        final PsiFile schemaOne = getFile("schema-one/schema-one.graphql");
+        final PsiFile schemaTwo = getFile("schema-two/schema-two.graphql");
+        final TypeDefinitionRegistryWithErrors registryOne = getRegistry(schemaOne);
+        final TypeDefinitionRegistryWithErrors registryTwo = getRegistry(schemaTwo);
+
+        final PsiDirectory directory = schemaOne.getContainingDirectory();
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            directory.createFile("added-one.graphql");
+        });
+
+        assertNotSame(registryOne, getRegistry(schemaOne));
+        assertNotSame(registryTwo, getRegistry(schemaTwo));
+    }
+
+    @Test
+    public void testMovedFileInvalidatesAllSchemas() {
+        final PsiFile schemaOne = getFile("schema-one/schema-one.graphql");
+        final PsiFile schemaTwo = getFile("schema-two/schema-two.graphql");
+        final TypeDefinitionRegistryWithErrors registryOne = getRegistry(schemaOne);
+        final TypeDefinitionRegistryWithErrors registryTwo = getRegistry(schemaTwo);
+
+        final PsiFile queryTwo = getFile("schema-two/query-two.graphql");
+        final PsiDirectory directory = schemaOne.getContainingDirectory();
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            MoveFilesOrDirectoriesUtil.doMoveFile(queryTwo, directory);
+        });
+
+        assertNotSame(registryOne, getRegistry(schemaOne));
+        assertNotSame(registryTwo, getRegistry(schemaTwo));
+    }
+
+    // ---- util ----
+
+    private PsiFile getFile(String path) {
+        for (PsiFile file : files) {
+            if (file.getVirtualFile().getPath().endsWith(path)) {
+                return file;
+            }
+        }
+        throw new AssertionError("Missing " + path);
+    }
+
+    private TypeDefinitionRegistryWithErrors getRegistry(PsiFile file) {
+        return SchemaIDLTypeDefinitionRegistry.getService(getProject()).getRegistryWithErrors(file);
+    }
+}
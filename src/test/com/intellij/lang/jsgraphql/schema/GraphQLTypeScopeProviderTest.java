@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema;
+
+import com.intellij.lang.jsgraphql.ide.project.graphqlconfig.GraphQLConfigManager;
+import com.intellij.lang.jsgraphql.psi.GraphQLSelectionSetOperationDefinition;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLType;
+import org.junit.Test;
+
+/**
+ * Verifies that cached type scopes are kept until the schema they were resolved from is replaced
+ */
+public class GraphQLTypeScopeProviderTest extends LightPlatformCodeInsightFixtureTestCase {
+
+    private PsiFile[] files;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        files = myFixture.configureByFiles(
+                "schema-one/.graphqlconfig",
+                "schema-one/schema-one.graphql",
+                "schema-one/query-one.graphql",
+                "schema-two/.graphqlconfig",
+                "schema-two/schema-two.graphql"
+        );
+        // use the synchronous method of building the configuration for the unit test
+        GraphQLConfigManager.getService(getProject()).doBuildConfigurationModel(null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        // clean up the schema discovery caches
+        for (PsiFile file : files) {
+            setText(file, "");
+        }
+        super.tearDown();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        return "test-resources/testData/graphql/graphql-config";
+    }
+
+    @Test
+    public void testCachedTypeScopeSurvivesUnrelatedEdit() {
+        final PsiFile queryOne = getFile("schema-one/query-one.graphql");
+        setText(queryOne, "{ fieldOne }");
+        final GraphQLTypeScopeProvider operation = getOperation(queryOne);
+        final GraphQLType typeScope = operation.getTypeScope();
+        assertNotNull(typeScope);
+
+        // edit the schema of the other graphql-config project
+        setText(getFile("schema-two/schema-two.graphql"), "type Query { fieldTwo: String fieldThree: String }");
+
+        final CachedValue<GraphQLType> cachedTypeScope = operation.getUserData(GraphQLTypeScopeProvider.TYPE_SCOPE_KEY);
+        assertNotNull(cachedTypeScope);
+        assertTrue(cachedTypeScope.hasUpToDateValue());
+        assertSame(typeScope, operation.getTypeScope());
+    }
+
+    @Test
+    public void testCachedTypeScopeUpdatesAfterSchemaChange() {
+        final PsiFile queryOne = getFile("schema-one/query-one.graphql");
+        setText(queryOne, "{ fieldOne }");
+        final GraphQLTypeScopeProvider operation = getOperation(queryOne);
+        final GraphQLType typeScope = operation.getTypeScope();
+        assertNull(((GraphQLObjectType) typeScope).getFieldDefinition("addedOne"));
+
+        setText(getFile("schema-one/schema-one.graphql"), "type Query { fieldOne: String addedOne: String }");
+
+        final GraphQLType changedTypeScope = operation.getTypeScope();
+        assertNotSame(typeScope, changedTypeScope);
+        assertNotNull(((GraphQLObjectType) changedTypeScope).getFieldDefinition("addedOne"));
+    }
+
+    // ---- util ----
+
+    private PsiFile getFile(String path) {
+        for (PsiFile file : files) {
+            if (file.getVirtualFile().getPath().endsWith(path)) {
+                return file;
+            }
+        }
+        throw new AssertionError("Missing " + path);
+    }
+
+    private static GraphQLTypeScopeProvider getOperation(PsiFile file) {
+        final GraphQLSelectionSetOperationDefinition operation = PsiTreeUtil.findChildOfType(file, GraphQLSelectionSetOperationDefinition.class);
+        assertInstanceOf(operation, GraphQLTypeScopeProvider.class);
+        return (GraphQLTypeScopeProvider) operation;
+    }
+
+    private void setText(PsiFile file, String text) {
+        final PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+        final Document document = documentManager.getDocument(file);
+        assertNotNull(document);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            document.setText(text);
+            documentManager.commitDocument(document);
+        });
+    }
+}
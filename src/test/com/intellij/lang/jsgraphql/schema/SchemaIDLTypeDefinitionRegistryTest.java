@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+import graphql.language.ObjectTypeDefinition;
+import graphql.language.TypeName;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.junit.Test;
+
+/**
+ * Verifies that a registry rebuild only parses the type system definitions that changed
+ */
+public class SchemaIDLTypeDefinitionRegistryTest extends LightPlatformCodeInsightFixtureTestCase {
+
+    private PsiFile psiFile;
+
+    @Override
+    protected void tearDown() throws Exception {
+        // clean up the schema discovery caches
+        if (psiFile != null) {
+            PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+            final Document document = documentManager.getDocument(psiFile);
+            assertNotNull(document);
+            ApplicationManager.getApplication().runWriteAction(() -> {
+                document.setText("");
+                documentManager.commitAllDocuments();
+            });
+        }
+        super.tearDown();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        return "test-resources/testData/graphql/registry";
+    }
+
+    @Test
+    public void testOnlyChangedDefinitionIsParsed() {
+        configure("Types.graphqls");
+        getRegistry();
+        final int parsedDefinitionCount = getService().getParsedDefinitionCount();
+
+        // change the field type of the second type without moving the other definitions
+        final int offset = indexOf("String", indexOf("type Second"));
+        replace(offset, offset + "String".length(), "Int");
+
+        final TypeDefinitionRegistry registry = getRegistry();
+        assertEquals(parsedDefinitionCount + 1, getService().getParsedDefinitionCount());
+        assertEquals("Int", getFieldTypeName(registry, "Second"));
+        assertEquals("String", getFieldTypeName(registry, "Third"));
+    }
+
+    @Test
+    public void testMovedDefinitionsHaveShiftedSourceLocations() {
+        configure("Types.graphqls");
+        TypeDefinitionRegistry registry = getRegistry();
+        assertEquals(1, getLine(registry, "Query"));
+        assertEquals(9, getLine(registry, "Second"));
+        assertEquals(13, getLine(registry, "Third"));
+
+        // add a field to the first type, which moves the definitions below it down one line
+        final int offset = indexOf("}", indexOf("type First"));
+        replace(offset, offset, "    age: Int\n");
+
+        registry = getRegistry();
+        assertEquals(1, getLine(registry, "Query"));
+        assertEquals(9 + 1, getLine(registry, "Second"));
+        assertEquals(13 + 1, getLine(registry, "Third"));
+        assertEquals("String", getFieldTypeName(registry, "Third"));
+    }
+
+    @Test
+    public void testMovedInjectionHasShiftedSourceLocations() {
+        configure("InjectedTypes.js");
+        assertEquals(2, getLine(getRegistry(), "Injected"));
+
+        // edit the host file outside the injection, which moves the injected definition down one line
+        replace(0, 0, "\n");
+
+        assertEquals(2 + 1, getLine(getRegistry(), "Injected"));
+    }
+
+    // ---- util ----
+
+    private void configure(String sourceFile) {
+        psiFile = myFixture.configureByFile(sourceFile);
+    }
+
+    private SchemaIDLTypeDefinitionRegistry getService() {
+        return SchemaIDLTypeDefinitionRegistry.getService(getProject());
+    }
+
+    private TypeDefinitionRegistry getRegistry() {
+        return getService().getRegistryWithErrors(myFixture.getFile()).getRegistry();
+    }
+
+    private int indexOf(String text, int fromOffset) {
+        final int offset = myFixture.getEditor().getDocument().getText().indexOf(text, fromOffset);
+        assertTrue("Missing " + text, offset != -1);
+        return offset;
+    }
+
+    private int indexOf(String text) {
+        return indexOf(text, 0);
+    }
+
+    private void replace(int startOffset, int endOffset, String text) {
+        final Document document = myFixture.getEditor().getDocument();
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            document.replaceString(startOffset, endOffset, text);
+            PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+        });
+    }
+
+    private static ObjectTypeDefinition getObjectType(TypeDefinitionRegistry registry, String name) {
+        return registry.getType(name, ObjectTypeDefinition.class).orElseThrow(() -> new AssertionError("Missing type " + name));
+    }
+
+    private static int getLine(TypeDefinitionRegistry registry, String name) {
+        return getObjectType(registry, name).getSourceLocation().getLine();
+    }
+
+    private static String getFieldTypeName(TypeDefinitionRegistry registry, String name) {
+        return ((TypeName) getObjectType(registry, name).getFieldDefinitions().get(0).getType()).getName();
+    }
+}
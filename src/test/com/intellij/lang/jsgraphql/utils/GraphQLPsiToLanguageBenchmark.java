@@ -0,0 +1,29 @@
+package com.intellij.lang.jsgraphql.utils;
+
+import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+/**
+ * Compares creating the graphql-java document of a large schema using the graphql-java parser and the PSI converter.
+ * Benchmarks are excluded from the default test task, and are run using the 'benchmark' task.
+ */
+public class GraphQLPsiToLanguageBenchmark extends BasePlatformTestCase {
+
+    private static final int TYPE_COUNT = 2000;
+
+    public void testParser() {
+        final String text = GraphQLPsiToLanguageTest.createSchema(TYPE_COUNT);
+        PlatformTestUtil.startPerformanceTest("GraphQL document using the graphql-java parser", 2000, () -> {
+            GraphQLUtil.parseDocument(text, 0, 0);
+        }).assertTiming();
+    }
+
+    public void testPsiConverter() {
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, GraphQLPsiToLanguageTest.createSchema(TYPE_COUNT));
+        PlatformTestUtil.startPerformanceTest("GraphQL document using the PSI converter", 1000, () -> {
+            new GraphQLPsiToLanguage(psiFile, null).createDocument();
+        }).assertTiming();
+    }
+}
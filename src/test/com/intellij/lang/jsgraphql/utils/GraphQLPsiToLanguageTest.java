@@ -0,0 +1,213 @@
+package com.intellij.lang.jsgraphql.utils;
+
+import com.google.common.collect.Lists;
+import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import graphql.language.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+public class GraphQLPsiToLanguageTest extends BasePlatformTestCase {
+
+    public void testDocumentMatchesParser() {
+        final String text = "# schema comment\n" +
+                "schema { query: Query mutation: Mutation }\n" +
+                "\"\"\"\nMulti-line\n  description\n\"\"\"\n" +
+                "directive @cached(ttl: Int = 60, scopes: [String!] = [\"a\", \"b\\n\"]) on FIELD_DEFINITION | OBJECT\n" +
+                "scalar Date @cached\n" +
+                "\"Node description\"\n" +
+                "interface Node { id: ID! }\n" +
+                "type Query implements Node @cached(ttl: 10) {\n" +
+                "  id: ID!\n" +
+                "  \"Field description\"\n" +
+                "  search(text: String = \"x\", limit: Int = 10, ratio: Float = 1.5, exact: Boolean = false, kind: Kind = ONE, filter: Filter = {name: null, tags: [\"t\"]}): [Result!]!\n" +
+                "}\n" +
+                "type Mutation { update(input: Filter!): Query }\n" +
+                "union Result = Query | Mutation\n" +
+                "enum Kind { ONE \"Two\" TWO @deprecated(reason: \"No\") }\n" +
+                "input Filter { name: String, tags: [String] }\n" +
+                "extend type Query { date: Date }\n" +
+                "extend enum Kind { THREE }\n" +
+                "query Search($text: String = \"y\", $limit: Int) @cached {\n" +
+                "  alias: search(text: $text, limit: $limit) { ...Fragment ... on Query { id } ... @include(if: true) { id } }\n" +
+                "}\n" +
+                "fragment Fragment on Query { id }\n" +
+                "{ id }\n";
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, text);
+        assertTrue(GraphQLPsiToLanguage.canConvert(psiFile));
+
+        final Document expected = GraphQLUtil.parseDocument(text, "test.graphql", 0, 0);
+        final Document actual = new GraphQLPsiToLanguage(psiFile, "test.graphql").createDocument();
+
+        assertEquals(AstPrinter.printAst(expected), AstPrinter.printAst(actual));
+        assertSameSourceLocations(expected, actual);
+    }
+
+    public void testCannotConvertErrors() {
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, "type Query { field: }");
+        assertFalse(GraphQLPsiToLanguage.canConvert(psiFile));
+    }
+
+    public void testGeneratedSchemaMatchesParser() {
+        final String text = createSchema(20);
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, text);
+
+        final Document expected = GraphQLUtil.parseDocument(text, 0, 0);
+        final Document actual = new GraphQLPsiToLanguage(psiFile, null).createDocument();
+
+        assertEquals(AstPrinter.printAst(expected), AstPrinter.printAst(actual));
+        assertSameSourceLocations(expected, actual);
+    }
+
+    public void testCommentsAndDescriptions() {
+        final String text = "# type comment\n" +
+                "\"Type description\"\n" +
+                "type Query {\n" +
+                "  # field comment\n" +
+                "  \"Field description\"\n" +
+                "  search(\n" +
+                "    # argument comment\n" +
+                "    text: String\n" +
+                "  ): String\n" +
+                "  # second field comment\n" +
+                "  id: ID\n" +
+                "}\n" +
+                "# enum comment\n" +
+                "enum Kind {\n" +
+                "  # value comment\n" +
+                "  ONE\n" +
+                "  \"\"\"\n" +
+                "  Block description\n" +
+                "  \"\"\"\n" +
+                "  TWO\n" +
+                "}\n" +
+                "# input comment\n" +
+                "input Filter {\n" +
+                "  # input field comment\n" +
+                "  name: String\n" +
+                "}\n";
+        final PsiFile psiFile = myFixture.configureByText(GraphQLFileType.INSTANCE, text);
+        final Document expected = GraphQLUtil.parseDocument(text, "test.graphql", 0, 0);
+        final Document actual = new GraphQLPsiToLanguage(psiFile, "test.graphql").createDocument();
+
+        // the printed AST doesn't include comments, so compare them directly
+        final ObjectTypeDefinition query = (ObjectTypeDefinition) actual.getDefinitions().get(0);
+        assertEquals(Collections.singletonList(" type comment"), getCommentContents(query));
+        assertEquals("Type description", query.getDescription().getContent());
+        assertFalse(query.getDescription().isMultiLine());
+
+        final FieldDefinition search = query.getFieldDefinitions().get(0);
+        assertEquals(Collections.singletonList(" field comment"), getCommentContents(search));
+        assertEquals("Field description", search.getDescription().getContent());
+        assertEquals(Collections.singletonList(" argument comment"), getCommentContents(search.getInputValueDefinitions().get(0)));
+        assertEquals(Collections.singletonList(" second field comment"), getCommentContents(query.getFieldDefinitions().get(1)));
+
+        final EnumTypeDefinition kind = (EnumTypeDefinition) actual.getDefinitions().get(1);
+        assertEquals(Collections.singletonList(" enum comment"), getCommentContents(kind));
+        assertEquals(Collections.singletonList(" value comment"), getCommentContents(kind.getEnumValueDefinitions().get(0)));
+        assertEquals("Block description", kind.getEnumValueDefinitions().get(1).getDescription().getContent());
+        assertTrue(kind.getEnumValueDefinitions().get(1).getDescription().isMultiLine());
+
+        final InputObjectTypeDefinition filter = (InputObjectTypeDefinition) actual.getDefinitions().get(2);
+        assertEquals(Collections.singletonList(" input comment"), getCommentContents(filter));
+        assertEquals(Collections.singletonList(" input field comment"), getCommentContents(filter.getInputValueDefinitions().get(0)));
+
+        final List<Definition> expectedDefinitions = expected.getDefinitions();
+        final List<Definition> actualDefinitions = actual.getDefinitions();
+        assertEquals(expectedDefinitions.size(), actualDefinitions.size());
+        for (int i = 0; i < expectedDefinitions.size(); i++) {
+            assertSameCommentsAndDescriptions(expectedDefinitions.get(i), actualDefinitions.get(i));
+        }
+    }
+
+    private static void assertSameCommentsAndDescriptions(@NotNull Node<?> expected, @NotNull Node<?> actual) {
+        final String message = expected.getClass().getSimpleName() + " " + AstPrinter.printAst(expected);
+        assertEquals(message, getCommentContents(expected), getCommentContents(actual));
+        final Description expectedDescription = getDescription(expected);
+        final Description actualDescription = getDescription(actual);
+        if (expectedDescription == null) {
+            assertNull(message, actualDescription);
+        } else {
+            assertNotNull(message, actualDescription);
+            assertEquals(message, expectedDescription.getContent(), actualDescription.getContent());
+            assertEquals(message, expectedDescription.isMultiLine(), actualDescription.isMultiLine());
+        }
+        final List<Node> expectedChildren = expected.getChildren();
+        final List<Node> actualChildren = actual.getChildren();
+        assertEquals(message, expectedChildren.size(), actualChildren.size());
+        for (int i = 0; i < expectedChildren.size(); i++) {
+            assertSameCommentsAndDescriptions(expectedChildren.get(i), actualChildren.get(i));
+        }
+    }
+
+    private static List<String> getCommentContents(@NotNull Node<?> node) {
+        final List<String> contents = Lists.newArrayList();
+        for (Comment comment : node.getComments()) {
+            contents.add(comment.getContent());
+        }
+        return contents;
+    }
+
+    private static Description getDescription(@NotNull Node<?> node) {
+        if (node instanceof ObjectTypeDefinition) {
+            return ((ObjectTypeDefinition) node).getDescription();
+        } else if (node instanceof FieldDefinition) {
+            return ((FieldDefinition) node).getDescription();
+        } else if (node instanceof InputValueDefinition) {
+            return ((InputValueDefinition) node).getDescription();
+        } else if (node instanceof EnumTypeDefinition) {
+            return ((EnumTypeDefinition) node).getDescription();
+        } else if (node instanceof EnumValueDefinition) {
+            return ((EnumValueDefinition) node).getDescription();
+        } else if (node instanceof InputObjectTypeDefinition) {
+            return ((InputObjectTypeDefinition) node).getDescription();
+        }
+        return null;
+    }
+
+    private static void assertSameSourceLocations(@NotNull Document expected, @NotNull Document actual) {
+        final List<Definition> expectedDefinitions = expected.getDefinitions();
+        final List<Definition> actualDefinitions = actual.getDefinitions();
+        assertEquals(expectedDefinitions.size(), actualDefinitions.size());
+        for (int i = 0; i < expectedDefinitions.size(); i++) {
+            assertSameSourceLocations(expectedDefinitions.get(i), actualDefinitions.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertSameSourceLocations(@NotNull Node<?> expected, @NotNull Node<?> actual) {
+        final SourceLocation expectedLocation = expected.getSourceLocation();
+        final SourceLocation actualLocation = actual.getSourceLocation();
+        final String message = expected.getClass().getSimpleName() + " " + AstPrinter.printAst(expected);
+        assertEquals(message, expectedLocation.getLine(), actualLocation.getLine());
+        assertEquals(message, expectedLocation.getColumn(), actualLocation.getColumn());
+        assertEquals(message, expectedLocation.getSourceName(), actualLocation.getSourceName());
+        final List<Node> expectedChildren = expected.getChildren();
+        final List<Node> actualChildren = actual.getChildren();
+        assertEquals(message, expectedChildren.size(), actualChildren.size());
+        for (int i = 0; i < expectedChildren.size(); i++) {
+            assertSameSourceLocations(expectedChildren.get(i), actualChildren.get(i));
+        }
+    }
+
+    static String createSchema(int typeCount) {
+        final StringBuilder schema = new StringBuilder("schema { query: Type0 }\n\n");
+        for (int i = 0; i < typeCount; i++) {
+            schema.append("\"\"\"\nType ").append(i).append("\n\"\"\"\n");
+            schema.append("type Type").append(i).append(" implements Node {\n");
+            schema.append("  id: ID!\n");
+            schema.append("  \"The name\"\n");
+            schema.append("  name(format: String = \"short\", limit: Int = 10): String @deprecated(reason: \"Use id\")\n");
+            schema.append("  next: Type").append((i + 1) % typeCount).append("\n");
+            schema.append("  list(filter: Filter): [Type").append(i).append("!]!\n");
+            schema.append("}\n\n");
+        }
+        schema.append("interface Node { id: ID! }\n\n");
+        schema.append("input Filter { name: String, kinds: [Kind!] = [ONE] }\n\n");
+        schema.append("enum Kind { ONE TWO }\n");
+        return schema.toString();
+    }
+}
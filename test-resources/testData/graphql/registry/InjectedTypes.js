@@ -0,0 +1,5 @@
+const schema = gql`
+    type Injected {
+        name: String
+    }
+`;